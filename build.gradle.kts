@@ -1,5 +1,6 @@
 plugins {
     id("org.openrewrite.build.recipe-library") version "latest.release"
+    id("me.champeau.jmh") version "0.7.2"
 }
 
 group = "org.openrewrite.recipe"
@@ -21,4 +22,22 @@ dependencies {
 
     testImplementation("org.openrewrite:rewrite-test")
     testRuntimeOnly("org.openrewrite:rewrite-java-17")
+
+    jmhRuntimeOnly("org.openrewrite:rewrite-java-17")
+}
+
+jmh {
+    fork.set(1)
+    warmupIterations.set(2)
+    iterations.set(5)
+    profilers.add("gc")
+    profilers.add("org.openrewrite.sql.benchmarks.PeakHeapProfiler")
+}
+
+tasks.register<JavaExec>("rowRetainedHeap") {
+    description = "Reports the heap retained by SQL data table rows with and without string interning."
+    group = "benchmark"
+    classpath = sourceSets["jmh"].runtimeClasspath
+    mainClass.set("org.openrewrite.sql.benchmarks.RowRetainedHeap")
+    jvmArgs("-XX:+UseSerialGC")
 }
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2023 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.sql;
+
+import com.github.vertical_blank.sqlformatter.SqlFormatter;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openrewrite.sql.benchmarks.SqlCorpus;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Re-indents formatted SQL into the text blocks it came from. In the recipe's package,
+ * as {@link Indenter} is package-private.
+ */
+@Fork(1)
+@Measurement(iterations = 5)
+@Warmup(iterations = 2)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class IndenterBenchmark {
+    String[] valueSources;
+    String[] formatted;
+
+    @Setup
+    public void setup() {
+        List<String> strings = SqlCorpus.TEXT_BLOCKS.strings();
+        valueSources = new String[strings.size()];
+        formatted = new String[strings.size()];
+        for (int i = 0; i < strings.size(); i++) {
+            valueSources[i] = SqlCorpus.textBlock(strings.get(i), "        ");
+            formatted[i] = SqlFormatter.format(strings.get(i));
+        }
+    }
+
+    @Benchmark
+    public void indent(Blackhole blackhole) {
+        for (int i = 0; i < valueSources.length; i++) {
+            blackhole.consume(Indenter.indent(valueSources[i], formatted[i], null));
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2023 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.sql.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openrewrite.ExecutionContext;
+import org.openrewrite.InMemoryExecutionContext;
+import org.openrewrite.SourceFile;
+import org.openrewrite.TreeVisitor;
+import org.openrewrite.sql.ChangeFunctionName;
+import org.openrewrite.sql.internal.SqlParseCache;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Renames the NVL calls of a corpus. With a cold cache each query is parsed, and with a warm cache
+ * the parses are already cached so that the walk and the edits are what is measured. Each invocation
+ * gets a new execution context so that data table rows don't pile up.
+ */
+@Fork(1)
+@Measurement(iterations = 5)
+@Warmup(iterations = 2)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class ChangeFunctionNameBenchmark {
+
+    @Param({"SHORT_LITERALS", "TEXT_BLOCKS", "NON_SQL"})
+    SqlCorpus corpus;
+
+    List<SourceFile> sourceFiles;
+    TreeVisitor<?, ExecutionContext> visitor;
+    SqlParseCache warmCache;
+
+    @Setup
+    public void setup() {
+        sourceFiles = corpus.sourceFiles();
+        visitor = new ChangeFunctionName("nvl", "coalesce").getVisitor();
+        warmCache = new SqlParseCache();
+        for (String s : corpus.strings()) {
+            warmCache.parse(s);
+        }
+    }
+
+    @Benchmark
+    public void coldCache(Blackhole blackhole) {
+        changeFunctionName(new SqlParseCache(), blackhole);
+    }
+
+    @Benchmark
+    public void warmCache(Blackhole blackhole) {
+        changeFunctionName(warmCache, blackhole);
+    }
+
+    private void changeFunctionName(SqlParseCache cache, Blackhole blackhole) {
+        ExecutionContext ctx = new InMemoryExecutionContext();
+        ctx.putMessage(SqlParseCache.class.getName(), cache);
+        for (SourceFile sourceFile : sourceFiles) {
+            blackhole.consume(visitor.visit(sourceFile, ctx));
+        }
+    }
+}
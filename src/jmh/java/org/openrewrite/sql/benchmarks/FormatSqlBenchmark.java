@@ -0,0 +1,77 @@
+/*
+ * Copyright 2023 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.sql.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openrewrite.ExecutionContext;
+import org.openrewrite.InMemoryExecutionContext;
+import org.openrewrite.SourceFile;
+import org.openrewrite.TreeVisitor;
+import org.openrewrite.sql.FormatSql;
+import org.openrewrite.sql.internal.SqlParseCache;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Formats the text blocks of a corpus of Java classes. Short literals are never formatted,
+ * so they measure what FormatSql costs on code it leaves alone. With a cold cache each query
+ * is parsed, and with a warm cache the parse is shared with a recipe that ran before.
+ */
+@Fork(1)
+@Measurement(iterations = 5)
+@Warmup(iterations = 2)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class FormatSqlBenchmark {
+
+    @Param({"TEXT_BLOCKS", "SHORT_LITERALS"})
+    SqlCorpus corpus;
+
+    List<SourceFile> sourceFiles;
+    SqlParseCache warmCache;
+
+    @Setup
+    public void setup() {
+        sourceFiles = corpus.sourceFiles();
+        warmCache = new SqlParseCache();
+        for (String s : corpus.strings()) {
+            warmCache.parse(s);
+        }
+    }
+
+    @Benchmark
+    public void coldCache(Blackhole blackhole) {
+        formatSql(new SqlParseCache(), blackhole);
+    }
+
+    @Benchmark
+    public void warmCache(Blackhole blackhole) {
+        formatSql(warmCache, blackhole);
+    }
+
+    private void formatSql(SqlParseCache cache, Blackhole blackhole) {
+        ExecutionContext ctx = new InMemoryExecutionContext();
+        ctx.putMessage(SqlParseCache.class.getName(), cache);
+        // the visitor holds on to the cache of the first context it sees, so each invocation gets its own
+        TreeVisitor<?, ExecutionContext> visitor = new FormatSql().getVisitor();
+        for (SourceFile sourceFile : sourceFiles) {
+            blackhole.consume(visitor.visit(sourceFile, ctx));
+        }
+    }
+}
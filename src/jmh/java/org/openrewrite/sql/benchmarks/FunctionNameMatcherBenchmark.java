@@ -0,0 +1,70 @@
+/*
+ * Copyright 2024 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.sql.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openrewrite.internal.StringUtils;
+import org.openrewrite.sql.internal.FunctionNameMatcher;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Matches the function names of a function-heavy corpus, as FindFunction and ChangeFunctionName
+ * do for every function node, against an exact name and a glob.
+ */
+@Fork(1)
+@Measurement(iterations = 5)
+@Warmup(iterations = 2)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class FunctionNameMatcherBenchmark {
+
+    @Param({"nvl", "to_*"})
+    String pattern;
+
+    String[] functionNames;
+    FunctionNameMatcher matcher;
+
+    @Setup
+    public void setup() {
+        String[] vocabulary = {
+                "NVL", "nvl2", "COALESCE", "to_char", "TO_DATE", "substr", "SUBSTRING", "upper", "lower",
+                "trim", "decode", "count", "sum", "max", "min", "round", "trunc", "sysdate", "instr", "length"
+        };
+        functionNames = new String[10_000];
+        for (int i = 0; i < functionNames.length; i++) {
+            // distinct instances, as names come from separately parsed statements
+            functionNames[i] = new String(vocabulary[i % vocabulary.length]);
+        }
+        matcher = FunctionNameMatcher.compile(pattern);
+    }
+
+    @Benchmark
+    public void matchesGlob(Blackhole blackhole) {
+        for (String name : functionNames) {
+            blackhole.consume(StringUtils.matchesGlob(name, pattern));
+        }
+    }
+
+    @Benchmark
+    public void functionNameMatcher(Blackhole blackhole) {
+        for (String name : functionNames) {
+            blackhole.consume(matcher.matches(name));
+        }
+    }
+}
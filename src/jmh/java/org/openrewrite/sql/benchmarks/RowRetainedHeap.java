@@ -0,0 +1,85 @@
+/*
+ * Copyright 2023 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.sql.benchmarks;
+
+import org.openrewrite.sql.SqlDetector;
+import org.openrewrite.sql.internal.SqlParseCache;
+import org.openrewrite.sql.internal.SqlScanContext;
+import org.openrewrite.sql.internal.StringInterner;
+import org.openrewrite.sql.table.DatabaseColumnsUsed;
+import org.openrewrite.text.PlainText;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.openrewrite.Tree.randomId;
+import static org.openrewrite.marker.Markers.EMPTY;
+
+/**
+ * Reports the heap retained by the {@link DatabaseColumnsUsed} rows that {@link SqlDetector} produces for
+ * the {@link SqlCorpus#SHORT_LITERALS} corpus repeated over many source files, with and without interning
+ * their strings. Each source file gets its own parse cache, so that rows don't share strings through
+ * cached statements, as they wouldn't once a large scan outgrows the cache.
+ * <p>
+ * Retained heap isn't a rate, so rather than a JMH benchmark this is a program, run with
+ * {@code ./gradlew rowRetainedHeap}.
+ */
+public class RowRetainedHeap {
+    private static final int SOURCE_FILES = 2_000;
+
+    public static void main(String[] args) {
+        StringInterner notInterned = new StringInterner() {
+            @Override
+            public String intern(String s) {
+                return s;
+            }
+        };
+        report("Not interned", notInterned);
+        report("Interned", new StringInterner());
+    }
+
+    private static void report(String label, StringInterner strings) {
+        long before = usedHeapAfterGc();
+        List<DatabaseColumnsUsed.Row> rows = rows(strings);
+        long retained = usedHeapAfterGc() - before;
+        // the rows and the interner are still reachable here, so they were part of the measurement
+        System.out.printf("%s: %,d rows, %,d KB retained%n", label, rows.size(), retained / 1024);
+    }
+
+    private static List<DatabaseColumnsUsed.Row> rows(StringInterner strings) {
+        List<String> statements = SqlCorpus.SHORT_LITERALS.strings();
+        List<DatabaseColumnsUsed.Row> rows = new ArrayList<>();
+        for (int i = 0; i < SOURCE_FILES; i++) {
+            PlainText sourceFile = new PlainText(randomId(), Paths.get("src/main/resources/queries/Queries" + i + ".sql"),
+                    EMPTY, null, false, null, null, "", null);
+            SqlScanContext context = SqlScanContext.of(sourceFile);
+            SqlDetector detector = new SqlDetector(new SqlParseCache(), strings);
+            for (int line = 0; line < statements.size(); line++) {
+                detector.rows(context, line + 1, statements.get(line), 1, rows::add);
+            }
+        }
+        return rows;
+    }
+
+    private static long usedHeapAfterGc() {
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
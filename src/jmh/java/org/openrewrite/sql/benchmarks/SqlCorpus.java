@@ -0,0 +1,155 @@
+/*
+ * Copyright 2023 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.sql.benchmarks;
+
+import org.openrewrite.InMemoryExecutionContext;
+import org.openrewrite.SourceFile;
+import org.openrewrite.java.JavaParser;
+import org.openrewrite.text.PlainText;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static java.util.Collections.singletonList;
+import static java.util.stream.Collectors.toList;
+import static org.openrewrite.Tree.randomId;
+import static org.openrewrite.marker.Markers.EMPTY;
+
+/**
+ * The strings that the SQL benchmarks scan, generated from a fixed seed so that every run
+ * measures the same work.
+ */
+public enum SqlCorpus {
+    SHORT_LITERALS,
+    TEXT_BLOCKS,
+    NON_SQL,
+    LARGE_SCRIPT;
+
+    private static final int STRINGS = 200;
+    private static final int FIELDS_PER_CLASS = 20;
+    private static final int SCRIPT_LINES = 10_000;
+
+    private static final String[] TABLES = {"users", "orders", "accounts", "sessions", "invoices"};
+    private static final String[] COLUMNS = {"id", "name", "email", "state", "created", "amount"};
+    private static final String[] NOUNS = {"user", "order", "account", "session", "invoice"};
+
+    public List<String> strings() {
+        Random random = new Random(42);
+        List<String> strings = new ArrayList<>(STRINGS);
+        switch (this) {
+            case SHORT_LITERALS:
+            case TEXT_BLOCKS:
+                for (int i = 0; i < STRINGS; i++) {
+                    strings.add(statement(random, this == TEXT_BLOCKS));
+                }
+                return strings;
+            case NON_SQL:
+                for (int i = 0; i < STRINGS; i++) {
+                    strings.add(prose(random));
+                }
+                return strings;
+            default:
+                return singletonList(script(random));
+        }
+    }
+
+    /**
+     * @return Java classes holding the strings as literals or text blocks, or a single SQL file for
+     * {@link #LARGE_SCRIPT}.
+     */
+    public List<SourceFile> sourceFiles() {
+        List<String> strings = strings();
+        if (this == LARGE_SCRIPT) {
+            return singletonList(new PlainText(randomId(), Paths.get("V1__dump.sql"), EMPTY,
+                    null, false, null, null, strings.get(0), null));
+        }
+
+        List<String> classes = new ArrayList<>();
+        StringBuilder java = new StringBuilder();
+        for (int i = 0; i < strings.size(); i++) {
+            if (i % FIELDS_PER_CLASS == 0) {
+                java.append("class Queries").append(i / FIELDS_PER_CLASS).append(" {\n");
+            }
+            java.append("    String q").append(i).append(" = ")
+                    .append(this == TEXT_BLOCKS ? textBlock(strings.get(i), "        ") : "\"" + strings.get(i) + "\"")
+                    .append(";\n");
+            if (i % FIELDS_PER_CLASS == FIELDS_PER_CLASS - 1 || i == strings.size() - 1) {
+                classes.add(java.append("}\n").toString());
+                java.setLength(0);
+            }
+        }
+        return JavaParser.fromJavaVersion().build()
+                .parse(new InMemoryExecutionContext(), classes.toArray(new String[0]))
+                .collect(toList());
+    }
+
+    /**
+     * @return The source of a text block holding {@code text}, with each line indented by {@code indentation}.
+     */
+    public static String textBlock(String text, String indentation) {
+        return "\"\"\"\n" + indentation + text.replace("\n", "\n" + indentation) + "\n" + indentation + "\"\"\"";
+    }
+
+    static String statement(Random random, boolean multiline) {
+        String table = pick(random, TABLES);
+        String a = pick(random, COLUMNS);
+        String b = pick(random, COLUMNS);
+        String separator = multiline ? "\n" : " ";
+        switch (random.nextInt(4)) {
+            case 0:
+                return "SELECT " + a + ", nvl(" + b + ", 0) FROM " + table + separator + "WHERE " + a + " = ?";
+            case 1:
+                return "UPDATE " + table + " SET " + a + " = ?" + separator + "WHERE " + b + " = ?";
+            case 2:
+                return "DELETE FROM " + table + separator + "WHERE " + a + " < now()";
+            default:
+                return "INSERT INTO " + table + " (" + a + ", " + b + ")" + separator + "VALUES (?, ?)";
+        }
+    }
+
+    /**
+     * Messages that contain SQL keywords, some of which get past the keyword scanner and fail to parse.
+     */
+    static String prose(Random random) {
+        String noun = pick(random, NOUNS);
+        switch (random.nextInt(4)) {
+            case 0:
+                return "Failed to update " + noun + " " + random.nextInt(1000);
+            case 1:
+                return "Select a " + noun + " from the list";
+            case 2:
+                return "Could not delete " + noun + " from " + pick(random, NOUNS) + " history";
+            default:
+                return "Created " + random.nextInt(100) + " " + noun + "s";
+        }
+    }
+
+    private static String script(Random random) {
+        StringBuilder script = new StringBuilder();
+        int lines = 0;
+        while (lines < SCRIPT_LINES) {
+            script.append(statement(random, true)).append(";\n");
+            lines += 2;
+        }
+        return script.toString();
+    }
+
+    private static String pick(Random random, String[] words) {
+        return words[random.nextInt(words.length)];
+    }
+}
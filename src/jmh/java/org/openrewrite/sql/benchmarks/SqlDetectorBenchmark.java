@@ -0,0 +1,71 @@
+/*
+ * Copyright 2024 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.sql.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openrewrite.sql.SqlDetector;
+import org.openrewrite.sql.internal.SqlParseCache;
+import org.openrewrite.sql.internal.SqlScanContext;
+import org.openrewrite.text.PlainText;
+
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+import static org.openrewrite.Tree.randomId;
+import static org.openrewrite.marker.Markers.EMPTY;
+
+/**
+ * Column extraction from already parsed statements, so that only the detector itself is measured.
+ * The GC profiler that the build enables reports the allocation per statement.
+ */
+@Fork(1)
+@Measurement(iterations = 5)
+@Warmup(iterations = 2)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class SqlDetectorBenchmark {
+
+    @Param({
+            "SELECT id, name, email FROM users WHERE id = 1",
+            "UPDATE commit SET state = 'CANCELED', updated = now() WHERE state IN ('QUEUED', 'ORPHANED') AND commit_id = :commitId",
+            "DELETE FROM sessions WHERE expires < now()"
+    })
+    String sql;
+
+    SqlDetector detector;
+    SqlScanContext context;
+
+    @Setup
+    public void setup() {
+        SqlParseCache cache = new SqlParseCache();
+        cache.parse(sql);
+        detector = new SqlDetector(cache);
+        context = SqlScanContext.of(new PlainText(randomId(), Paths.get("queries.sql"), EMPTY,
+                null, false, null, null, sql, null), null);
+    }
+
+    @Benchmark
+    public void streamRows(Blackhole blackhole) {
+        detector.rows(context, 1, sql, 1, blackhole::consume);
+    }
+
+    @Benchmark
+    public Object collectRows() {
+        return detector.rows(context, 1, sql);
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2023 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.sql.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openrewrite.sql.SqlDetector;
+import org.openrewrite.sql.internal.SqlParseCache;
+import org.openrewrite.sql.internal.SqlScanContext;
+import org.openrewrite.text.PlainText;
+
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.openrewrite.Tree.randomId;
+import static org.openrewrite.marker.Markers.EMPTY;
+
+/**
+ * Detects and analyzes the SQL of a whole corpus, as FindSql and FormatSql do, including the
+ * parse unless the cache is warm.
+ */
+@Fork(1)
+@Measurement(iterations = 5)
+@Warmup(iterations = 2)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class SqlDetectorCorpusBenchmark {
+
+    @Param({"SHORT_LITERALS", "TEXT_BLOCKS", "NON_SQL", "LARGE_SCRIPT"})
+    SqlCorpus corpus;
+
+    @Param({"false", "true"})
+    boolean warmCache;
+
+    List<String> strings;
+    SqlParseCache cache;
+    SqlScanContext context;
+
+    @Setup
+    public void setup() {
+        strings = corpus.strings();
+        cache = new SqlParseCache();
+        SqlDetector detector = new SqlDetector(cache);
+        for (String s : strings) {
+            detector.isSql(s);
+        }
+        context = SqlScanContext.of(new PlainText(randomId(), Paths.get("queries.sql"), EMPTY,
+                null, false, null, null, "", null), null);
+    }
+
+    @Benchmark
+    public void isSql(Blackhole blackhole) {
+        SqlDetector detector = detector();
+        for (String s : strings) {
+            blackhole.consume(detector.isSql(s));
+        }
+    }
+
+    @Benchmark
+    public void rows(Blackhole blackhole) {
+        SqlDetector detector = detector();
+        for (String s : strings) {
+            detector.rows(context, 1, s, 1, blackhole::consume);
+        }
+    }
+
+    private SqlDetector detector() {
+        return new SqlDetector(warmCache ? cache : new SqlParseCache());
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2024 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.sql.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openrewrite.sql.internal.SqlKeywordScanner;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Compares the keyword scanner with the regular expression it replaced over a mix of
+ * SQL and SQL-looking string literals. How many of the non-SQL strings each filter would
+ * hand to the parser is asserted by {@code SqlKeywordScannerTest}.
+ */
+@Fork(1)
+@Measurement(iterations = 5)
+@Warmup(iterations = 2)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class SqlKeywordScannerBenchmark {
+    private static final Pattern SIMPLE_SQL_HEURISTIC = Pattern.compile("SELECT|UPDATE|DELETE|INSERT",
+            Pattern.CASE_INSENSITIVE);
+
+    private static final String[] SQL = {
+            "select * from table where id = 1",
+            "SELECT o.id, o.total FROM orders o JOIN customers c ON c.id = o.customer_id WHERE c.region = ?",
+            "UPDATE commit SET state = 'CANCELED' WHERE commit_id = :commitId",
+            "DELETE FROM access_token WHERE email = :email",
+            "INSERT INTO audit (id, message) VALUES (?, ?)"
+    };
+
+    private static final String[] NOT_SQL = {
+            "selectedItems",
+            "Failed to update user {}",
+            "insertion sort",
+            "Could not delete temporary file",
+            "user.updated_at",
+            "Please select an option from the list",
+            "com.example.service.UserService",
+            "application/json",
+            "Deleted %d records",
+            "onSelectionChanged"
+    };
+
+    @Benchmark
+    public void regex(Blackhole blackhole) {
+        for (String s : SQL) {
+            blackhole.consume(SIMPLE_SQL_HEURISTIC.matcher(s).find());
+        }
+        for (String s : NOT_SQL) {
+            blackhole.consume(SIMPLE_SQL_HEURISTIC.matcher(s).find());
+        }
+    }
+
+    @Benchmark
+    public void scanner(Blackhole blackhole) {
+        for (String s : SQL) {
+            blackhole.consume(SqlKeywordScanner.probablySql(s));
+        }
+        for (String s : NOT_SQL) {
+            blackhole.consume(SqlKeywordScanner.probablySql(s));
+        }
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2024 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.sql.benchmarks;
+
+import net.sf.jsqlparser.JSQLParserException;
+import net.sf.jsqlparser.parser.CCJSqlParserUtil;
+import net.sf.jsqlparser.statement.Statement;
+import org.openjdk.jmh.annotations.*;
+import org.openrewrite.sql.internal.SqlParser;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares jsqlparser's executor-per-parse entry point with {@link SqlParser},
+ * which parses on the calling thread.
+ */
+@Fork(1)
+@Measurement(iterations = 5)
+@Warmup(iterations = 2)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class SqlParserBenchmark {
+
+    @Param({
+            "select * from table where id = 1",
+            "UPDATE commit SET state = 'CANCELED' WHERE state IN ('QUEUED', 'ORPHANED') AND commit_id = :commitId",
+            "Failed to update user"
+    })
+    String sql;
+
+    @Benchmark
+    public Statement ccjSqlParserUtil() {
+        try {
+            return CCJSqlParserUtil.parse(sql);
+        } catch (JSQLParserException e) {
+            return null;
+        }
+    }
+
+    @Benchmark
+    public Statement sqlParser() {
+        try {
+            return SqlParser.parse(sql);
+        } catch (JSQLParserException e) {
+            return null;
+        }
+    }
+}
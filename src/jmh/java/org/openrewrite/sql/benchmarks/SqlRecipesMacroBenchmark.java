@@ -0,0 +1,84 @@
+/*
+ * Copyright 2023 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.sql.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openrewrite.InMemoryExecutionContext;
+import org.openrewrite.Recipe;
+import org.openrewrite.RecipeRun;
+import org.openrewrite.SourceFile;
+import org.openrewrite.internal.InMemoryLargeSourceSet;
+import org.openrewrite.sql.FindSql;
+import org.openrewrite.sql.FormatSql;
+import org.openrewrite.sql.search.FindFunction;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs whole SQL recipes over a {@link SyntheticRepository}, reporting the wall-clock time of each run
+ * and, with the {@link PeakHeapProfiler}, the peak heap it reached. Sizes can be overridden
+ * with {@code -p}, for example {@code -p javaClasses=50000}.
+ */
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+@Measurement(iterations = 3)
+@Warmup(iterations = 1)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class SqlRecipesMacroBenchmark {
+
+    @Param({"20000"})
+    int javaClasses;
+
+    @Param({"2000"})
+    int yamlFiles;
+
+    @Param({"4"})
+    int sqlDumps;
+
+    @Param({"4194304"})
+    int sqlDumpBytes;
+
+    @Param({"0.2"})
+    double sqlDensity;
+
+    List<SourceFile> sourceFiles;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        sourceFiles = new SyntheticRepository(42, javaClasses, yamlFiles, sqlDumps, sqlDumpBytes, sqlDensity).generate();
+    }
+
+    @Benchmark
+    public RecipeRun findSql() {
+        return run(new FindSql());
+    }
+
+    @Benchmark
+    public RecipeRun findFunction() {
+        return run(new FindFunction("nvl"));
+    }
+
+    @Benchmark
+    public RecipeRun formatSql() {
+        return run(new FormatSql());
+    }
+
+    private RecipeRun run(Recipe recipe) {
+        return recipe.run(new InMemoryLargeSourceSet(sourceFiles), new InMemoryExecutionContext());
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2023 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.sql.benchmarks;
+
+import org.openrewrite.ExecutionContext;
+import org.openrewrite.InMemoryExecutionContext;
+import org.openrewrite.SourceFile;
+import org.openrewrite.java.JavaParser;
+import org.openrewrite.text.PlainText;
+import org.openrewrite.yaml.YamlParser;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static java.util.stream.Collectors.toList;
+import static org.openrewrite.marker.Markers.EMPTY;
+
+/**
+ * Generates a repository the size of a large monorepo as in-memory source files: Java classes
+ * with SQL in literals and text blocks, YAML files with embedded queries and SQL migration dumps,
+ * mixed with messages that look like SQL but aren't. The same seed and sizes always produce the
+ * same source text and paths. The ids of the SQL dumps come from the seed too, but the Java and
+ * YAML parsers give the trees they produce random ids.
+ */
+public class SyntheticRepository {
+    private static final int STRINGS_PER_FILE = 10;
+    private static final int JAVA_BATCH_SIZE = 500;
+
+    private final long seed;
+    private final int javaClasses;
+    private final int yamlFiles;
+    private final int sqlDumps;
+    private final int sqlDumpBytes;
+
+    /**
+     * The fraction of strings, between 0 and 1, that hold SQL rather than prose.
+     */
+    private final double sqlDensity;
+
+    public SyntheticRepository(long seed, int javaClasses, int yamlFiles, int sqlDumps, int sqlDumpBytes, double sqlDensity) {
+        this.seed = seed;
+        this.javaClasses = javaClasses;
+        this.yamlFiles = yamlFiles;
+        this.sqlDumps = sqlDumps;
+        this.sqlDumpBytes = sqlDumpBytes;
+        this.sqlDensity = sqlDensity;
+    }
+
+    public List<SourceFile> generate() {
+        Random random = new Random(seed);
+        ExecutionContext ctx = new InMemoryExecutionContext(Throwable::printStackTrace);
+        List<SourceFile> sourceFiles = new ArrayList<>(javaClasses + yamlFiles + sqlDumps);
+
+        // parse in batches, so that the compiler doesn't hold every class at once
+        List<String> batch = new ArrayList<>(JAVA_BATCH_SIZE);
+        for (int i = 0; i < javaClasses; i++) {
+            batch.add(javaClass(random, i));
+            if (batch.size() == JAVA_BATCH_SIZE || i == javaClasses - 1) {
+                sourceFiles.addAll(JavaParser.fromJavaVersion().build()
+                        .parse(ctx, batch.toArray(new String[0]))
+                        .collect(toList()));
+                batch.clear();
+            }
+        }
+
+        List<String> yaml = new ArrayList<>(yamlFiles);
+        for (int i = 0; i < yamlFiles; i++) {
+            yaml.add(yaml(random));
+        }
+        if (!yaml.isEmpty()) {
+            sourceFiles.addAll(YamlParser.builder().build()
+                    .parse(ctx, yaml.toArray(new String[0]))
+                    .collect(toList()));
+        }
+
+        for (int i = 0; i < sqlDumps; i++) {
+            sourceFiles.add(new PlainText(new UUID(random.nextLong(), random.nextLong()), Paths.get("db/migration/V" + i + "__dump.sql"), EMPTY,
+                    null, false, null, null, sqlDump(random), null));
+        }
+        return sourceFiles;
+    }
+
+    private String javaClass(Random random, int n) {
+        StringBuilder java = new StringBuilder("package com.example.repo").append(n % 100).append(";\n\n")
+                .append("class Repository").append(n).append(" {\n");
+        for (int i = 0; i < STRINGS_PER_FILE; i++) {
+            java.append("    String s").append(i).append(" = ");
+            if (random.nextDouble() < sqlDensity) {
+                boolean textBlock = random.nextBoolean();
+                String sql = SqlCorpus.statement(random, textBlock);
+                java.append(textBlock ? SqlCorpus.textBlock(sql, "        ") : "\"" + sql + "\"");
+            } else {
+                java.append('"').append(SqlCorpus.prose(random)).append('"');
+            }
+            java.append(";\n");
+        }
+        return java.append("}\n").toString();
+    }
+
+    private String yaml(Random random) {
+        StringBuilder yaml = new StringBuilder("queries:\n");
+        for (int i = 0; i < STRINGS_PER_FILE; i++) {
+            String value = random.nextDouble() < sqlDensity ?
+                    SqlCorpus.statement(random, false) :
+                    SqlCorpus.prose(random);
+            yaml.append("  q").append(i).append(": \"").append(value).append("\"\n");
+        }
+        return yaml.toString();
+    }
+
+    private String sqlDump(Random random) {
+        StringBuilder sql = new StringBuilder(sqlDumpBytes + 128);
+        while (sql.length() < sqlDumpBytes) {
+            sql.append(SqlCorpus.statement(random, true)).append(";\n");
+        }
+        return sql.toString();
+    }
+}
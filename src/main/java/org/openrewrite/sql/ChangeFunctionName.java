@@ -17,20 +17,21 @@ package org.openrewrite.sql;
 
 import lombok.EqualsAndHashCode;
 import lombok.Value;
-import net.sf.jsqlparser.expression.Function;
 import org.openrewrite.*;
-import org.openrewrite.internal.StringUtils;
-import org.openrewrite.sql.internal.ChangeTrackingExpressionDeParser;
+import org.openrewrite.sql.internal.FunctionNameMatcher;
+import org.openrewrite.sql.internal.SqlStatistics;
 import org.openrewrite.sql.table.DatabaseFunctions;
 import org.openrewrite.sql.table.DatabaseQueries;
+import org.openrewrite.sql.table.SqlProcessingStatistics;
 
-import static org.openrewrite.sql.trait.Traits.sql;
+import static java.util.Collections.singletonList;
 
 @Value
 @EqualsAndHashCode(callSuper = false)
-public class ChangeFunctionName extends Recipe {
+public class ChangeFunctionName extends Recipe implements SqlPipeline.Participant {
     transient DatabaseQueries databaseQueries = new DatabaseQueries(this);
     transient DatabaseFunctions databaseFunctions = new DatabaseFunctions(this);
+    transient SqlProcessingStatistics processingStatistics = new SqlProcessingStatistics(this);
 
     @Option(displayName = "Old function name",
             description = "The name of the function to find, case insensitive.",
@@ -56,27 +57,23 @@ public class ChangeFunctionName extends Recipe {
 
     @Override
     public TreeVisitor<?, ExecutionContext> getVisitor() {
-        return sql().asVisitor((sql, ctx) -> sql.visitSql(new ChangeTrackingExpressionDeParser() {
-            @Override
-            public void visit(Function function) {
-                if (StringUtils.matchesGlob(function.getName(), oldFunctionName)) {
-                    databaseQueries.insertRow(ctx, new DatabaseQueries.Row(
-                            sql.getCursor().firstEnclosingOrThrow(SourceFile.class).getSourcePath().toString(),
-                            sql.getString()
-                    ));
-                    databaseFunctions.insertRow(ctx, new DatabaseFunctions.Row(
-                            sql.getCursor().firstEnclosingOrThrow(SourceFile.class).getSourcePath().toString(),
-                            function.getName().toLowerCase(),
-                            sql.getString()
-                    ));
-                    trackChange(() -> {
-                        function.setName(newFunctionName);
-                        super.visit(function);
-                    });
-                } else {
-                    super.visit(function);
-                }
+        return SqlPipeline.visitor(this, singletonList(this));
+    }
+
+    @Override
+    public void onComplete(ExecutionContext ctx) {
+        SqlStatistics.get(ctx).report(ctx, getName(), processingStatistics);
+    }
+
+    @Override
+    public SqlPipeline.Handler newHandler() {
+        FunctionNameMatcher matcher = FunctionNameMatcher.compile(oldFunctionName);
+        return (query, function) -> {
+            String name = query.getFunctionName(function);
+            if (matcher.matches(name)) {
+                query.insertFunctionRows(databaseQueries, databaseFunctions, name);
+                query.renameFunction(function, newFunctionName);
             }
-        }));
+        };
     }
 }
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2024 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.sql;
+
+import lombok.EqualsAndHashCode;
+import lombok.Value;
+import org.openrewrite.*;
+import org.openrewrite.sql.internal.SqlStatistics;
+import org.openrewrite.sql.table.DatabaseFunctions;
+import org.openrewrite.sql.table.DatabaseQueries;
+import org.openrewrite.sql.table.SqlProcessingStatistics;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import static java.util.Collections.singletonList;
+
+@Value
+@EqualsAndHashCode(callSuper = false)
+public class ChangeFunctionNames extends Recipe implements SqlPipeline.Participant {
+    transient DatabaseQueries databaseQueries = new DatabaseQueries(this);
+    transient DatabaseFunctions databaseFunctions = new DatabaseFunctions(this);
+    transient SqlProcessingStatistics processingStatistics = new SqlProcessingStatistics(this);
+
+    @Option(displayName = "Function names",
+            description = "A mapping of old function names to the new names to use. Old names are case insensitive.",
+            example = "NVL: COALESCE")
+    Map<String, String> functionNames;
+
+    @Override
+    public String getDisplayName() {
+        return "Change SQL function names";
+    }
+
+    @Override
+    public String getDescription() {
+        return "Applies a whole table of function renames, such as when migrating from Oracle to Postgres, " +
+               "in a single pass over each SQL statement. Unlike chaining `ChangeFunctionName` recipes, " +
+               "each statement is parsed and edited once no matter how many renames there are.";
+    }
+
+    @Override
+    public TreeVisitor<?, ExecutionContext> getVisitor() {
+        return SqlPipeline.visitor(this, singletonList(this));
+    }
+
+    @Override
+    public void onComplete(ExecutionContext ctx) {
+        SqlStatistics.get(ctx).report(ctx, getName(), processingStatistics);
+    }
+
+    @Override
+    public SqlPipeline.Handler newHandler() {
+        Map<String, String> renames = new HashMap<>(functionNames.size() * 2);
+        for (Map.Entry<String, String> rename : functionNames.entrySet()) {
+            renames.put(rename.getKey().toLowerCase(Locale.ROOT), rename.getValue());
+        }
+
+        return (query, function) -> {
+            String name = query.getFunctionName(function);
+            String newName = renames.get(name.toLowerCase(Locale.ROOT));
+            if (newName != null) {
+                query.insertFunctionRows(databaseQueries, databaseFunctions, name);
+                query.renameFunction(function, newName);
+            }
+        };
+    }
+}
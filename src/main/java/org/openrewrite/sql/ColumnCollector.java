@@ -0,0 +1,458 @@
+/*
+ * Copyright 2024 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.sql;
+
+import lombok.Value;
+import net.sf.jsqlparser.expression.Alias;
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.expression.ExpressionVisitorAdapter;
+import net.sf.jsqlparser.schema.Column;
+import net.sf.jsqlparser.schema.Table;
+import net.sf.jsqlparser.statement.StatementVisitorAdapter;
+import net.sf.jsqlparser.statement.delete.Delete;
+import net.sf.jsqlparser.statement.insert.Insert;
+import net.sf.jsqlparser.statement.merge.Merge;
+import net.sf.jsqlparser.statement.merge.MergeInsert;
+import net.sf.jsqlparser.statement.merge.MergeUpdate;
+import net.sf.jsqlparser.statement.select.*;
+import net.sf.jsqlparser.statement.update.Update;
+import net.sf.jsqlparser.statement.update.UpdateSet;
+import org.jspecify.annotations.Nullable;
+import org.openrewrite.sql.internal.SqlScanContext;
+import org.openrewrite.sql.internal.StringInterner;
+import org.openrewrite.sql.table.DatabaseColumnsUsed;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+import static org.openrewrite.sql.table.DatabaseColumnsUsed.Operation.*;
+
+/**
+ * Attributes every column a statement uses to its table in a single walk of the statement,
+ * resolving table aliases, derived tables and common table expressions as it goes.
+ * <p>
+ * Columns written by an UPDATE, INSERT or MERGE are reported with that operation. Every other
+ * column reference is reported as a {@link DatabaseColumnsUsed.Operation#SELECT} read. This
+ * includes select lists, predicates, join conditions, grouping, ordering and subqueries. Columns
+ * of derived tables and common table expressions are reported by the query that defines them.
+ * Without the schema, an unqualified column in a query over several tables cannot be attributed
+ * exactly, so it is attributed to the first table of the query. Each row is reported once per statement.
+ * <p>
+ * Not thread-safe; a collector is used for a single statement on a single thread.
+ */
+class ColumnCollector extends StatementVisitorAdapter {
+    private final String sourcePath;
+    private final @Nullable String commitHash;
+    private final int lineNumber;
+    private final StringInterner strings;
+    private final Consumer<DatabaseColumnsUsed.Row> rows;
+    private final Set<DatabaseColumnsUsed.Row> reported = new HashSet<>();
+
+    @Nullable
+    private Scope scope;
+
+    /**
+     * Whether an unqualified column may refer to a select list alias rather than a table column,
+     * as in GROUP BY, HAVING and ORDER BY.
+     */
+    private boolean selectAliasesVisible;
+
+    private final SelectVisitorAdapter selects = new SelectVisitorAdapter() {
+        @Override
+        public void visit(PlainSelect plainSelect) {
+            boolean outerSelectAliasesVisible = selectAliasesVisible;
+            selectAliasesVisible = false;
+            push();
+            withItems(plainSelect.getWithItemsList());
+            from(plainSelect.getFromItem());
+            fromJoins(plainSelect.getJoins());
+            for (SelectItem<?> selectItem : plainSelect.getSelectItems()) {
+                if (selectItem.getAlias() != null) {
+                    scope().selectAliases.add(selectItem.getAlias().getName());
+                }
+                selectItem.getExpression().accept(expressions);
+            }
+            joinConditions(plainSelect.getJoins());
+            read(plainSelect.getWhere());
+            selectAliasesVisible = true;
+            if (plainSelect.getGroupBy() != null) {
+                read(plainSelect.getGroupBy().getGroupByExpressionList());
+            }
+            read(plainSelect.getHaving());
+            orderBy(plainSelect.getOrderByElements());
+            selectAliasesVisible = outerSelectAliasesVisible;
+            pop();
+        }
+
+        @Override
+        public void visit(SetOperationList setOperationList) {
+            push();
+            withItems(setOperationList.getWithItemsList());
+            for (Select select : setOperationList.getSelects()) {
+                select.accept(this);
+            }
+            pop();
+        }
+
+        @Override
+        public void visit(ParenthesedSelect parenthesedSelect) {
+            push();
+            withItems(parenthesedSelect.getWithItemsList());
+            parenthesedSelect.getSelect().accept(this);
+            pop();
+        }
+
+        @Override
+        public void visit(LateralSubSelect lateralSubSelect) {
+            visit((ParenthesedSelect) lateralSubSelect);
+        }
+
+        @Override
+        public void visit(Values values) {
+            // values can't reference the columns of a surrounding statement's tables
+            push();
+            read(values.getExpressions());
+            pop();
+        }
+    };
+
+    private final ExpressionVisitorAdapter expressions = new ExpressionVisitorAdapter() {
+        @Override
+        public void visit(Column column) {
+            addRow(SELECT, column);
+        }
+
+        @Override
+        public void visit(AllColumns allColumns) {
+            Scope s = scope();
+            for (Source source : s.sources) {
+                if (source.getTable() != null) {
+                    addRow(SELECT, source.getTable(), "*");
+                }
+            }
+        }
+
+        @Override
+        public void visit(AllTableColumns allTableColumns) {
+            addRow(SELECT, allTableColumns.getTable(), "*");
+        }
+    };
+
+    ColumnCollector(SqlScanContext context, int lineNumber, StringInterner strings,
+                    Consumer<DatabaseColumnsUsed.Row> rows) {
+        this.sourcePath = strings.intern(context.getSourcePath());
+        this.commitHash = context.getCommitHash() == null ? null : strings.intern(context.getCommitHash());
+        this.lineNumber = lineNumber;
+        this.strings = strings;
+        this.rows = rows;
+        expressions.setSelectVisitor(selects);
+    }
+
+    @Override
+    public void visit(Select select) {
+        select.accept(selects);
+    }
+
+    @Override
+    public void visit(Update update) {
+        push();
+        withItems(update.getWithItemsList());
+        from(update.getTable());
+        fromJoins(update.getStartJoins());
+        from(update.getFromItem());
+        fromJoins(update.getJoins());
+        for (UpdateSet set : update.getUpdateSets()) {
+            for (Column column : set.getColumns()) {
+                addRow(UPDATE, column);
+            }
+            read(set.getValues());
+        }
+        joinConditions(update.getStartJoins());
+        joinConditions(update.getJoins());
+        read(update.getWhere());
+        pop();
+    }
+
+    @Override
+    public void visit(Delete delete) {
+        push();
+        withItems(delete.getWithItemsList());
+        from(delete.getTable());
+        if (delete.getUsingList() != null) {
+            for (Table using : delete.getUsingList()) {
+                from(using);
+            }
+        }
+        fromJoins(delete.getJoins());
+        if (delete.getTables() != null) {
+            for (Table table : delete.getTables()) {
+                addRow(DELETE, table, null);
+            }
+        }
+        if (delete.getTable() != null) {
+            addRow(DELETE, delete.getTable(), null);
+        }
+        joinConditions(delete.getJoins());
+        read(delete.getWhere());
+        pop();
+    }
+
+    @Override
+    public void visit(Insert insert) {
+        push();
+        withItems(insert.getWithItemsList());
+        Table table = insert.getTable();
+        if (insert.getColumns() == null || insert.getColumns().isEmpty()) {
+            addRow(INSERT, table, null);
+        } else {
+            for (Column column : insert.getColumns()) {
+                addRow(INSERT, table.getName(), column.getColumnName());
+            }
+        }
+        if (insert.getSelect() != null) {
+            insert.getSelect().accept(selects);
+        }
+        pop();
+    }
+
+    @Override
+    public void visit(Merge merge) {
+        push();
+        from(merge.getTable());
+        from(merge.getFromItem());
+        read(merge.getOnCondition());
+        MergeUpdate update = merge.getMergeUpdate();
+        if (update != null) {
+            for (UpdateSet set : update.getUpdateSets()) {
+                for (Column column : set.getColumns()) {
+                    addRow(UPDATE, column);
+                }
+                read(set.getValues());
+            }
+            read(update.getWhereCondition());
+            if (update.getDeleteWhereCondition() != null) {
+                addRow(DELETE, merge.getTable(), null);
+                read(update.getDeleteWhereCondition());
+            }
+        }
+        MergeInsert insert = merge.getMergeInsert();
+        if (insert != null) {
+            if (insert.getColumns() == null || insert.getColumns().isEmpty()) {
+                addRow(INSERT, merge.getTable(), null);
+            } else {
+                for (Column column : insert.getColumns()) {
+                    addRow(INSERT, merge.getTable().getName(), column.getColumnName());
+                }
+            }
+            read(insert.getValues());
+            read(insert.getWhereCondition());
+        }
+        pop();
+    }
+
+    private void withItems(@Nullable List<WithItem> withItems) {
+        if (withItems != null) {
+            for (WithItem withItem : withItems) {
+                // registered first, so that a recursive common table expression can refer to itself
+                scope().commonTableExpressions.add(withItem.getAlias().getName());
+                withItem.getSelect().accept(selects);
+            }
+        }
+    }
+
+    private void from(@Nullable FromItem fromItem) {
+        if (fromItem instanceof Table) {
+            Table table = (Table) fromItem;
+            scope().sources.add(new Source(aliasOr(table.getAlias(), table.getName()),
+                    isCommonTableExpression(table.getName()) ? null : table.getName()));
+        } else if (fromItem instanceof ParenthesedSelect) {
+            ((ParenthesedSelect) fromItem).accept(selects);
+            scope().sources.add(new Source(aliasOr(fromItem.getAlias(), null), null));
+        } else if (fromItem instanceof ParenthesedFromItem) {
+            ParenthesedFromItem parenthesed = (ParenthesedFromItem) fromItem;
+            from(parenthesed.getFromItem());
+            fromJoins(parenthesed.getJoins());
+            joinConditions(parenthesed.getJoins());
+        } else if (fromItem instanceof TableFunction) {
+            ((TableFunction) fromItem).getFunction().accept(expressions);
+        }
+    }
+
+    private void fromJoins(@Nullable List<Join> joins) {
+        if (joins != null) {
+            for (Join join : joins) {
+                from(join.getRightItem());
+            }
+        }
+    }
+
+    private void joinConditions(@Nullable List<Join> joins) {
+        if (joins != null) {
+            for (Join join : joins) {
+                for (Expression on : join.getOnExpressions()) {
+                    on.accept(expressions);
+                }
+                if (join.getUsingColumns() != null) {
+                    // a using column is a column of both sides of the join
+                    for (Column column : join.getUsingColumns()) {
+                        addRow(SELECT, column);
+                        if (join.getRightItem() instanceof Table) {
+                            addRow(SELECT, (Table) join.getRightItem(), column.getColumnName());
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private void orderBy(@Nullable List<OrderByElement> orderByElements) {
+        if (orderByElements != null) {
+            for (OrderByElement orderByElement : orderByElements) {
+                read(orderByElement.getExpression());
+            }
+        }
+    }
+
+    private void read(@Nullable Expression expression) {
+        if (expression != null) {
+            expression.accept(expressions);
+        }
+    }
+
+    private void addRow(DatabaseColumnsUsed.Operation operation, Column column) {
+        String columnName = column.getColumnName();
+        Table qualifier = column.getTable();
+        if (qualifier != null && qualifier.getName() != null) {
+            addRow(operation, qualifier, columnName);
+        } else if (!"true".equalsIgnoreCase(columnName) && !"false".equalsIgnoreCase(columnName)) {
+            Scope s = scope();
+            if (selectAliasesVisible && s.isSelectAlias(columnName)) {
+                return;
+            }
+            if (!s.sources.isEmpty() && s.sources.get(0).getTable() != null) {
+                addRow(operation, s.sources.get(0).getTable(), columnName);
+            }
+        }
+    }
+
+    /**
+     * @param table A table name or alias as written in the statement, which is resolved to the table it refers to.
+     */
+    private void addRow(DatabaseColumnsUsed.Operation operation, Table table, @Nullable String columnName) {
+        Source source = resolve(table.getName());
+        if (source == null) {
+            addRow(operation, table.getName(), columnName);
+        } else if (source.getTable() != null) {
+            addRow(operation, source.getTable(), columnName);
+        }
+        // otherwise a derived table, whose columns are reported by the query that defines it
+    }
+
+    private void addRow(DatabaseColumnsUsed.Operation operation, String table, @Nullable String columnName) {
+        DatabaseColumnsUsed.Row row = new DatabaseColumnsUsed.Row(
+                sourcePath,
+                lineNumber,
+                commitHash,
+                operation,
+                strings.intern(table),
+                columnName == null ? null : strings.intern(columnName)
+        );
+        if (reported.add(row)) {
+            rows.accept(row);
+        }
+    }
+
+    private @Nullable Source resolve(String name) {
+        for (Scope s = scope; s != null; s = s.parent) {
+            for (Source source : s.sources) {
+                if (name.equalsIgnoreCase(source.getName())) {
+                    return source;
+                }
+            }
+        }
+        return null;
+    }
+
+    private boolean isCommonTableExpression(String name) {
+        for (Scope s = scope; s != null; s = s.parent) {
+            for (String commonTableExpression : s.commonTableExpressions) {
+                if (name.equalsIgnoreCase(commonTableExpression)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static @Nullable String aliasOr(@Nullable Alias alias, @Nullable String name) {
+        return alias == null ? name : alias.getName();
+    }
+
+    private void push() {
+        scope = new Scope(scope);
+    }
+
+    private void pop() {
+        scope = scope().parent;
+    }
+
+    private Scope scope() {
+        if (scope == null) {
+            scope = new Scope(null);
+        }
+        return scope;
+    }
+
+    /**
+     * The tables a query can refer to, along with those of the queries enclosing it.
+     */
+    private static class Scope {
+        @Nullable
+        final Scope parent;
+
+        final List<Source> sources = new ArrayList<>(2);
+        final List<String> commonTableExpressions = new ArrayList<>(0);
+        final List<String> selectAliases = new ArrayList<>(0);
+
+        Scope(@Nullable Scope parent) {
+            this.parent = parent;
+        }
+
+        boolean isSelectAlias(String name) {
+            for (String alias : selectAliases) {
+                if (name.equalsIgnoreCase(alias)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    @Value
+    private static class Source {
+        /**
+         * The alias of the table or derived table, or the table name when it has no alias.
+         */
+        @Nullable
+        String name;
+
+        /**
+         * The table, or {@code null} for a derived table or common table expression.
+         */
+        @Nullable
+        String table;
+    }
+}
@@ -15,22 +15,84 @@
  */
 package org.openrewrite.sql;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
+import lombok.EqualsAndHashCode;
+import lombok.Value;
 import org.jspecify.annotations.Nullable;
 import org.openrewrite.*;
-import org.openrewrite.java.JavaIsoVisitor;
-import org.openrewrite.java.tree.*;
-import org.openrewrite.marker.GitProvenance;
 import org.openrewrite.marker.SearchResult;
+import org.openrewrite.sql.internal.ColumnUsageAggregator;
+import org.openrewrite.sql.internal.LineIndex;
+import org.openrewrite.sql.internal.RowSpill;
+import org.openrewrite.sql.internal.SqlParseCache;
+import org.openrewrite.sql.internal.SqlScanContext;
+import org.openrewrite.sql.internal.SqlStatistics;
+import org.openrewrite.sql.internal.StringInterner;
+import org.openrewrite.sql.table.DatabaseColumnUsage;
 import org.openrewrite.sql.table.DatabaseColumnsUsed;
+import org.openrewrite.sql.table.SqlProcessingStatistics;
 import org.openrewrite.text.PlainText;
 import org.openrewrite.text.PlainTextVisitor;
-import org.openrewrite.yaml.YamlIsoVisitor;
-import org.openrewrite.yaml.tree.Yaml;
 
-import static org.openrewrite.internal.StringUtils.countOccurrences;
+import java.nio.file.Paths;
+import java.util.*;
 
+@Value
+@EqualsAndHashCode(callSuper = false)
 public class FindSql extends Recipe {
+    private static final List<SqlExtractor> EXTRACTORS = new ArrayList<>();
+
+    static {
+        EXTRACTORS.add(new PlainTextSqlExtractor());
+        EXTRACTORS.add(new JavaSqlExtractor());
+        EXTRACTORS.add(new YamlSqlExtractor());
+        for (SqlExtractor extractor : ServiceLoader.load(SqlExtractor.class, FindSql.class.getClassLoader())) {
+            EXTRACTORS.add(extractor);
+        }
+    }
+
     transient DatabaseColumnsUsed used = new DatabaseColumnsUsed(this);
+    transient DatabaseColumnUsage usage = new DatabaseColumnUsage(this);
+    transient SqlProcessingStatistics processingStatistics = new SqlProcessingStatistics(this);
+
+    @Option(displayName = "Parallelism",
+            description = "How parallel the analysis of the statements of a large SQL file is. A few statements " +
+                          "per unit of parallelism are analyzed at once on the JVM's common fork-join pool. " +
+                          "Defaults to the number of available processors. Use 1 to analyze on the calling thread.",
+            example = "4",
+            required = false)
+    @Nullable
+    Integer parallelism;
+
+    @Option(displayName = "Spill directory",
+            description = "When set, rows of the `DatabaseColumnsUsed` data table are appended in batches to a CSV file " +
+                          "in this directory instead of being held in memory until the run ends. " +
+                          "Use for scans whose rows don't fit on the heap. Cannot be combined with `aggregate`, " +
+                          "whose summary is already small enough to hold in memory.",
+            example = "build/sql-spill",
+            required = false)
+    @Nullable
+    String spillDirectory;
+
+    @Option(displayName = "Aggregate",
+            description = "When true, instead of a row per column used by each statement, the `DatabaseColumnUsage` " +
+                          "data table gets a row per table, column and operation, with the number of occurrences, " +
+                          "the number of source files and a few sample locations. Defaults to false.",
+            example = "true",
+            required = false)
+    @Nullable
+    Boolean aggregate;
+
+    public FindSql() {
+        this(null, null, null);
+    }
+
+    @JsonCreator
+    public FindSql(@Nullable Integer parallelism, @Nullable String spillDirectory, @Nullable Boolean aggregate) {
+        this.parallelism = parallelism;
+        this.spillDirectory = spillDirectory;
+        this.aggregate = aggregate;
+    }
 
     @Override
     public String getDisplayName() {
@@ -42,6 +104,13 @@ public class FindSql extends Recipe {
         return "Find SQL in code (e.g. in string literals) and in resources like those ending with `.sql`.";
     }
 
+    @Override
+    public Validated<Object> validate() {
+        return super.validate().and(Validated.test("spillDirectory",
+                "Cannot be combined with `aggregate`.",
+                spillDirectory, dir -> dir == null || !Boolean.TRUE.equals(aggregate)));
+    }
+
     @Override
     public TreeVisitor<?, ExecutionContext> getVisitor() {
         return Preconditions.check(Preconditions.or(
@@ -53,149 +122,136 @@ public class FindSql extends Recipe {
                 }),
                 new FindSourceFiles("**/*.sql").getVisitor()
         ), new TreeVisitor<Tree, ExecutionContext>() {
-            final SqlDetector detector = new SqlDetector();
+            @Nullable
+            SqlDetector detector;
+            final Set<ColumnUsageAggregator.Usage> usagesInSourceFile = new HashSet<>();
 
             @Override
             public @Nullable Tree preVisit(Tree tree, ExecutionContext ctx) {
                 if (tree instanceof SourceFile) {
                     stopAfterPreVisit();
-                    tree = new PlainTextVisitor<ExecutionContext>() {
-                        @Override
-                        public PlainText visitText(PlainText text, ExecutionContext ctx) {
-                            return find(ctx, 1, getCursor(), text.getText());
-                        }
-                    }.visit(tree, ctx);
-
-                    tree = new JavaIsoVisitor<ExecutionContext>() {
-                        int lineNumber = 1;
-                        @Override
-                        public Space visitSpace(Space space, Space.Location loc, ExecutionContext ctx) {
-                            lineNumber += countLines(space);
-                            return space;
-                        }
-
-                        @Override
-                        public J.Literal visitLiteral(J.Literal literal, ExecutionContext ctx) {
-                            visitSpace(literal.getPrefix(), Space.Location.LITERAL_PREFIX, ctx);
-                            if (literal.getValue() instanceof String) {
-                                literal = find(ctx, lineNumber, getCursor(), (String) literal.getValue());
-                                assert literal.getValue() != null;
-                                lineNumber += countLines(literal.getValue().toString());
-                            }
-                            return literal;
-                        }
-                    }.visit(tree, ctx);
-
-                tree = new YamlIsoVisitor<ExecutionContext>() {
-                    int lineNumber = 1;
-                    @Override
-                    public Yaml.Scalar visitScalar(Yaml.Scalar scalar, ExecutionContext ctx) {
-                        lineNumber += countLines(scalar.getPrefix());
-                        Yaml.Scalar s = find(ctx, lineNumber, getCursor(), scalar.getValue());
-                        lineNumber += countLines(s.getValue());
-                        return s;
-                    }
-
-                    @Override
-                    public Yaml.Documents visitDocuments(Yaml.Documents documents, ExecutionContext ctx) {
-                        lineNumber += countLines(documents.getPrefix());
-                        return super.visitDocuments(documents, ctx);
-                    }
-
-                    @Override
-                    public Yaml.Document visitDocument(Yaml.Document document, ExecutionContext ctx) {
-                        lineNumber += countLines(document.getPrefix());
-                        return super.visitDocument(document, ctx);
-                    }
-
-                    @Override
-                    public Yaml.Mapping.Entry visitMappingEntry(Yaml.Mapping.Entry entry, ExecutionContext ctx) {
-                        lineNumber += countLines(entry.getPrefix());
-                        lineNumber += countLines(entry.getBeforeMappingValueIndicator());
-                        return super.visitMappingEntry(entry, ctx);
-                    }
-
-                    @Override
-                    public Yaml.Sequence.Entry visitSequenceEntry(Yaml.Sequence.Entry entry, ExecutionContext ctx) {
-                        lineNumber += countLines(entry.getPrefix());
-                        return super.visitSequenceEntry(entry, ctx);
-                    }
-
-                    @Override
-                    public Yaml.Mapping visitMapping(Yaml.Mapping mapping, ExecutionContext ctx) {
-                        lineNumber += countLines(mapping.getPrefix());
-                        lineNumber += countLines(mapping.getOpeningBracePrefix());
-                        Yaml.Mapping m = super.visitMapping(mapping, ctx);
-                        lineNumber += countLines(m.getClosingBracePrefix());
-                        return m;
-                    }
-
-                    @Override
-                    public Yaml.Sequence visitSequence(Yaml.Sequence sequence, ExecutionContext ctx) {
-                        lineNumber += countLines(sequence.getPrefix());
-                        lineNumber += countLines(sequence.getOpeningBracketPrefix());
-                        Yaml.Sequence s = super.visitSequence(sequence, ctx);
-                        lineNumber += countLines(s.getOpeningBracketPrefix());
-                        return s;
+                    if (detector == null) {
+                        detector = new SqlDetector(SqlParseCache.get(ctx), StringInterner.get(ctx),
+                                SqlStatistics.get(ctx).recorder(FindSql.this.getName()));
                     }
-
-                    @Override
-                    public Yaml visitAlias(Yaml.Alias alias, ExecutionContext ctx) {
-                        lineNumber += countLines(alias.getPrefix());
-                        return super.visitAlias(alias, ctx);
-                    }
-
-                    @Override
-                    public Yaml visitAnchor(Yaml.Anchor anchor, ExecutionContext ctx) {
-                        lineNumber += countLines(anchor.getPrefix());
-                        return super.visitAnchor(anchor, ctx);
+                    try {
+                        return find(detector, (SourceFile) tree, ctx);
+                    } finally {
+                        if (!usagesInSourceFile.isEmpty()) {
+                            aggregator(ctx).addSourceFile(usagesInSourceFile);
+                            usagesInSourceFile.clear();
+                        }
                     }
-                }.visit(tree, ctx);
-
                 }
                 return tree;
             }
 
-            private <T extends Tree> T find(ExecutionContext ctx, int lineNumber, Cursor cursor, String text) {
-                //noinspection unchecked
-                return (T) cursor
-                        .getPathAsStream(SourceFile.class::isInstance)
-                        .findFirst()
-                        .map(SourceFile.class::cast)
-                        .map(sourceFile -> {
+            private SourceFile find(SqlDetector detector, SourceFile sourceFile, ExecutionContext ctx) {
+                SqlScanContext context = SqlScanContext.of(sourceFile);
+                int scriptParallelism = parallelism == null ? Runtime.getRuntime().availableProcessors() : parallelism;
+                for (SqlExtractor extractor : EXTRACTORS) {
+                    if (extractor.isAcceptable(sourceFile)) {
+                        if (sourceFile instanceof PlainText) {
+                            // the script starts on the first line, so rows go straight into the data table
+                            return extractor.extract(sourceFile, (cursor, text) -> {
+                                int[] count = new int[1];
+                                detector.rows(context, 1, text, scriptParallelism, row -> {
+                                    insertRow(ctx, row);
+                                    count[0]++;
+                                });
+                                Tree t = cursor.getValue();
+                                return count[0] == 0 ? t : SearchResult.found(t);
+                            }, ctx);
+                        }
+
+                        // rows are relative to the start of the tree holding the SQL until that tree's line is known
+                        Map<UUID, List<DatabaseColumnsUsed.Row>> found = new LinkedHashMap<>();
+                        SourceFile after = extractor.extract(sourceFile, (cursor, text) -> {
                             Tree t = cursor.getValue();
-                            String commitHash = sourceFile.getMarkers().findFirst(GitProvenance.class)
-                                    .map(GitProvenance::getChange)
-                                    .orElse(null);
-                            for (DatabaseColumnsUsed.Row row : detector.rows(sourceFile, commitHash, lineNumber, text)) {
-                                used.insertRow(ctx, row);
-                                t = SearchResult.found(t);
+                            List<DatabaseColumnsUsed.Row> rows = detector.rows(context, 1, text);
+                            if (rows.isEmpty()) {
+                                return t;
                             }
+                            t = SearchResult.found(t);
+                            found.put(t.getMarkers().findFirst(SearchResult.class)
+                                    .orElseThrow(() -> new IllegalStateException("Expected a search result"))
+                                    .getId(), rows);
                             return t;
-                        })
-                        .orElseGet(cursor::getValue);
+                        }, ctx);
+                        insertRows(after, found, ctx);
+                        return after;
+                    }
+                }
+                return sourceFile;
+            }
+
+            private void insertRow(ExecutionContext ctx, DatabaseColumnsUsed.Row row) {
+                if (!Boolean.TRUE.equals(aggregate) && spillDirectory == null) {
+                    used.insertRow(ctx, row);
+                    return;
+                } else if (ctx.getCycle() > 1) {
+                    // like data tables, only record what the first cycle finds
+                    return;
+                }
+                if (Boolean.TRUE.equals(aggregate)) {
+                    usagesInSourceFile.add(aggregator(ctx).add(row));
+                } else if (spillDirectory != null) {
+                    spill(ctx, spillDirectory).add(row);
+                }
+            }
+
+            private void insertRows(SourceFile sourceFile, Map<UUID, List<DatabaseColumnsUsed.Row>> found, ExecutionContext ctx) {
+                if (found.isEmpty()) {
+                    return;
+                }
+                Map<UUID, Integer> lines = LineIndex.markerLines(sourceFile, found.keySet());
+                for (Map.Entry<UUID, List<DatabaseColumnsUsed.Row>> rows : found.entrySet()) {
+                    int line = lines.getOrDefault(rows.getKey(), 1);
+                    for (DatabaseColumnsUsed.Row row : rows.getValue()) {
+                        insertRow(ctx, line == 1 ? row : new DatabaseColumnsUsed.Row(
+                                row.getSourcePath(),
+                                line + row.getLineNumber() - 1,
+                                row.getGetCommitHash(),
+                                row.getOperation(),
+                                row.getTable(),
+                                row.getColumn()
+                        ));
+                    }
+                }
             }
         });
     }
 
-    private static int countLines(@Nullable String s) {
-        if (s == null) {
-            return 0;
+    @Override
+    public void onComplete(ExecutionContext ctx) {
+        SqlStatistics.get(ctx).report(ctx, getName(), processingStatistics);
+        if (spillDirectory != null) {
+            spill(ctx, spillDirectory).flush();
         }
-        return countOccurrences(s, "\n");
-    }
-    private static int countLines(Space space) {
-        int n = countOccurrences(space.getWhitespace(), "\n");
-        for (Comment comment : space.getComments()) {
-            if (comment instanceof TextComment) {
-                TextComment textComment = (TextComment) comment;
-                n += countOccurrences(textComment.getText(), "\n");
-            } else if (comment instanceof Javadoc.DocComment) {
-                Javadoc.DocComment docComment = (Javadoc.DocComment) comment;
-                n += countOccurrences(docComment.toString(), "\n");
+        if (Boolean.TRUE.equals(aggregate)) {
+            ColumnUsageAggregator aggregator = aggregators(ctx).remove(this);
+            if (aggregator != null) {
+                for (DatabaseColumnUsage.Row row : aggregator.summary()) {
+                    usage.insertRow(ctx, row);
+                }
             }
-            n += countOccurrences(comment.getSuffix(), "\n");
         }
-        return n;
+    }
+
+    private static RowSpill<DatabaseColumnsUsed.Row> spill(ExecutionContext ctx, String spillDirectory) {
+        return RowSpill.get(ctx, DatabaseColumnsUsed.Row.class, Paths.get(spillDirectory));
+    }
+
+    private ColumnUsageAggregator aggregator(ExecutionContext ctx) {
+        return aggregators(ctx).computeIfAbsent(this, k -> new ColumnUsageAggregator());
+    }
+
+    /**
+     * Keyed by recipe instance rather than by equality, so that two {@link FindSql} in the same run
+     * each summarize only what they found.
+     */
+    private static Map<FindSql, ColumnUsageAggregator> aggregators(ExecutionContext ctx) {
+        return ctx.computeMessageIfAbsent(ColumnUsageAggregator.class.getName(),
+                k -> Collections.synchronizedMap(new IdentityHashMap<FindSql, ColumnUsageAggregator>()));
     }
 }
@@ -30,12 +30,21 @@ import org.openrewrite.java.style.IntelliJ;
 import org.openrewrite.java.style.TabsAndIndentsStyle;
 import org.openrewrite.java.tree.J;
 import org.openrewrite.java.tree.TypeUtils;
+import org.openrewrite.sql.internal.SqlEvent;
+import org.openrewrite.sql.internal.SqlParseCache;
+import org.openrewrite.sql.internal.SqlStatistics;
+import org.openrewrite.sql.internal.StringInterner;
+import org.openrewrite.sql.table.SqlProcessingStatistics;
 
 import java.util.Optional;
 
+import static org.openrewrite.PathUtils.separatorsToUnix;
+
 @Value
 @EqualsAndHashCode(callSuper = false)
 public class FormatSql extends Recipe {
+    transient SqlProcessingStatistics processingStatistics = new SqlProcessingStatistics(this);
+
     @Option(displayName = "SQL dialect to be used to format SQL snippets.",
             description = "Check out https://github.com/vertical-blank/sql-formatter#dialect for supported dialects.",
             valid = {"sql", "mariadb", "mysql", "postgresql", "db2", "plsql", "n1ql", "redshift", "spark", "tsql"},
@@ -90,6 +99,11 @@ public class FormatSql extends Recipe {
         return "Checks whether a text block may contain SQL, and if so, formats the text accordingly.";
     }
 
+    @Override
+    public void onComplete(ExecutionContext ctx) {
+        SqlStatistics.get(ctx).report(ctx, getName(), processingStatistics);
+    }
+
     @Override
     public TreeVisitor<?, ExecutionContext> getVisitor() {
         FormatConfigBuilder builder = FormatConfig.builder();
@@ -108,22 +122,38 @@ public class FormatSql extends Recipe {
         return Preconditions.check(
                 new UsesJavaVersion<>(15),
                 new JavaIsoVisitor<ExecutionContext>() {
-                    private final SqlDetector sqlDetector = new SqlDetector();
+                    @Nullable
+                    private SqlDetector sqlDetector;
 
                     @Override
                     public J.Literal visitLiteral(J.Literal lit, ExecutionContext ctx) {
                         J.Literal literal = super.visitLiteral(lit, ctx);
                         if (isTextBlock(literal)) {
                             String originalValue = (String) literal.getValue();
-                            if (sqlDetector.isSql(originalValue)) {
-                                String formatted = sqlFormatter.format(originalValue, config);
-                                if (!originalValue.equals(formatted)) {
-                                    TabsAndIndentsStyle style = getCursor().firstEnclosingOrThrow(SourceFile.class)
-                                            .getStyle(TabsAndIndentsStyle.class);
-                                    String indented = Indenter.indent(literal.getValueSource(), formatted, style);
-                                    return literal
-                                            .withValue(formatted)
-                                            .withValueSource(String.format("\"\"\"%s\"\"\"", indented));
+                            if (sqlDetector == null) {
+                                sqlDetector = new SqlDetector(SqlParseCache.get(ctx), StringInterner.get(ctx),
+                                        SqlStatistics.get(ctx).recorder(FormatSql.this.getName()));
+                            }
+                            SourceFile sourceFile = getCursor().firstEnclosingOrThrow(SourceFile.class);
+                            String sourcePath = separatorsToUnix(sourceFile.getSourcePath().toString());
+                            if (sqlDetector.isSql(originalValue, sourcePath)) {
+                                SqlEvent.@Nullable Started event = SqlEvent.FORMAT.begin();
+                                String outcome = "failed";
+                                try {
+                                    String formatted = sqlFormatter.format(originalValue, config);
+                                    if (!originalValue.equals(formatted)) {
+                                        TabsAndIndentsStyle style = sourceFile.getStyle(TabsAndIndentsStyle.class);
+                                        String indented = Indenter.indent(literal.getValueSource(), formatted, style);
+                                        outcome = "formatted";
+                                        return literal
+                                                .withValue(formatted)
+                                                .withValueSource(String.format("\"\"\"%s\"\"\"", indented));
+                                    }
+                                    outcome = "unchanged";
+                                } finally {
+                                    if (event != null) {
+                                        event.commit(sourcePath, originalValue.length(), outcome);
+                                    }
                                 }
                             }
                         }
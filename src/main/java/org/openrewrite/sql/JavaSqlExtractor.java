@@ -0,0 +1,43 @@
+/*
+ * Copyright 2024 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.sql;
+
+import org.openrewrite.ExecutionContext;
+import org.openrewrite.SourceFile;
+import org.openrewrite.java.JavaIsoVisitor;
+import org.openrewrite.java.tree.J;
+import org.openrewrite.java.tree.JavaSourceFile;
+
+class JavaSqlExtractor implements SqlExtractor {
+
+    @Override
+    public boolean isAcceptable(SourceFile sourceFile) {
+        return sourceFile instanceof JavaSourceFile;
+    }
+
+    @Override
+    public SourceFile extract(SourceFile sourceFile, Handler handler, ExecutionContext ctx) {
+        return (SourceFile) new JavaIsoVisitor<ExecutionContext>() {
+            @Override
+            public J.Literal visitLiteral(J.Literal literal, ExecutionContext ctx) {
+                if (literal.getValue() instanceof String) {
+                    return (J.Literal) handler.handle(getCursor(), (String) literal.getValue());
+                }
+                return literal;
+            }
+        }.visitNonNull(sourceFile, ctx);
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2024 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.sql;
+
+import org.openrewrite.ExecutionContext;
+import org.openrewrite.SourceFile;
+import org.openrewrite.text.PlainText;
+import org.openrewrite.text.PlainTextVisitor;
+
+class PlainTextSqlExtractor implements SqlExtractor {
+
+    @Override
+    public boolean isAcceptable(SourceFile sourceFile) {
+        return sourceFile instanceof PlainText;
+    }
+
+    @Override
+    public SourceFile extract(SourceFile sourceFile, Handler handler, ExecutionContext ctx) {
+        return (SourceFile) new PlainTextVisitor<ExecutionContext>() {
+            @Override
+            public PlainText visitText(PlainText text, ExecutionContext ctx) {
+                return (PlainText) handler.handle(getCursor(), text.getText());
+            }
+        }.visitNonNull(sourceFile, ctx);
+    }
+}
@@ -15,184 +15,209 @@
  */
 package org.openrewrite.sql;
 
-
-import lombok.EqualsAndHashCode;
-import lombok.Value;
-import net.sf.jsqlparser.JSQLParserException;
-import net.sf.jsqlparser.expression.ExpressionVisitorAdapter;
-import net.sf.jsqlparser.parser.CCJSqlParserUtil;
-import net.sf.jsqlparser.schema.Column;
-import net.sf.jsqlparser.schema.Table;
 import net.sf.jsqlparser.statement.Statement;
-import net.sf.jsqlparser.statement.StatementVisitorAdapter;
-import net.sf.jsqlparser.statement.delete.Delete;
-import net.sf.jsqlparser.statement.select.*;
-import net.sf.jsqlparser.statement.update.Update;
-import net.sf.jsqlparser.statement.update.UpdateSet;
 import org.jspecify.annotations.Nullable;
 import org.openrewrite.SourceFile;
+import org.openrewrite.sql.internal.SqlEvent;
+import org.openrewrite.sql.internal.SqlParseCache;
+import org.openrewrite.sql.internal.SqlScanContext;
+import org.openrewrite.sql.internal.SqlStatementSplitter;
+import org.openrewrite.sql.internal.SqlStatistics;
+import org.openrewrite.sql.internal.StringInterner;
 import org.openrewrite.sql.table.DatabaseColumnsUsed;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
-import java.util.Stack;
-import java.util.concurrent.atomic.AtomicReference;
-import java.util.regex.Pattern;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
 
-import static java.util.Collections.emptyList;
-import static org.openrewrite.PathUtils.separatorsToUnix;
+import static org.openrewrite.sql.internal.SqlKeywordScanner.probablySql;
+import static org.openrewrite.sql.internal.SqlKeywordScanner.probablySqlOrDdl;
 
 public class SqlDetector {
-    private static final Pattern SIMPLE_SQL_HEURISTIC = Pattern.compile("SELECT|UPDATE|DELETE|INSERT",
-            Pattern.CASE_INSENSITIVE);
+    /**
+     * Scripts shorter than this are analyzed on the calling thread even when parallelism is requested.
+     */
+    private static final int PARALLEL_THRESHOLD_LENGTH = 64 * 1024;
+
+    /**
+     * How many statements per unit of parallelism are analyzed or waiting to be reported at
+     * once, so that slow statements don't hold up the others while memory stays bounded.
+     */
+    private static final int IN_FLIGHT_PER_THREAD = 4;
+
+    private final SqlParseCache parseCache;
+    private final StringInterner strings;
+
+    @Nullable
+    private final SqlStatistics.Recorder statistics;
+
+    public SqlDetector() {
+        this(new SqlParseCache());
+    }
 
-    private static final Pattern SIMPLE_DDL_HEURISTIC = Pattern.compile("CREATE|ALTER|DROP|TRUNCATE", Pattern.CASE_INSENSITIVE);
+    /**
+     * @param parseCache A parse cache, typically {@link SqlParseCache#get(org.openrewrite.ExecutionContext)},
+     *                   so that statements already parsed by other SQL recipes in the same run are reused.
+     */
+    public SqlDetector(SqlParseCache parseCache) {
+        this(parseCache, new StringInterner());
+    }
+
+    /**
+     * @param strings Canonicalizes the strings of the rows produced, typically {@link StringInterner#get(org.openrewrite.ExecutionContext)},
+     *                so that rows from every file and recipe in the same run share repeated names and paths.
+     */
+    public SqlDetector(SqlParseCache parseCache, StringInterner strings) {
+        this(parseCache, strings, null);
+    }
+
+    /**
+     * @param statistics Records the strings examined and statements parsed on behalf of a recipe,
+     *                   for the {@link org.openrewrite.sql.table.SqlProcessingStatistics} data table.
+     */
+    public SqlDetector(SqlParseCache parseCache, StringInterner strings, SqlStatistics.@Nullable Recorder statistics) {
+        this.parseCache = parseCache;
+        this.strings = strings;
+        this.statistics = statistics;
+    }
 
     public List<DatabaseColumnsUsed.Row> rows(SourceFile sourceFile, @Nullable String commitHash, int lineNumber, @Nullable String maybeSql) {
-        if (!probablySql(maybeSql)) {
-            return emptyList();
+        return rows(SqlScanContext.of(sourceFile, commitHash), lineNumber, maybeSql);
+    }
+
+    public List<DatabaseColumnsUsed.Row> rows(SqlScanContext context, int lineNumber, @Nullable String maybeSql) {
+        List<DatabaseColumnsUsed.Row> rows = new ArrayList<>();
+        rows(context, lineNumber, maybeSql, 1, rows::add);
+        return rows;
+    }
+
+    /**
+     * Reports the columns used by each statement in {@code maybeSql} to {@code rows} as they are found,
+     * without collecting them first.
+     *
+     * @param context     The source file the SQL was found in.
+     * @param lineNumber  The line that {@code maybeSql} starts on. When it holds several statements,
+     *                    each row is attributed to the line its own statement starts on.
+     * @param parallelism How parallel the analysis of the statements of a large script is. A few statements
+     *                    per unit of parallelism are analyzed at once on the common fork-join pool. Rows are
+     *                    reported on the calling thread in statement order regardless.
+     * @param rows        Receives each row.
+     */
+    public void rows(SqlScanContext context, int lineNumber, @Nullable String maybeSql, int parallelism,
+                     Consumer<DatabaseColumnsUsed.Row> rows) {
+        boolean probablySql = probablySql(maybeSql);
+        if (statistics != null && maybeSql != null) {
+            statistics.counters(context.getSourcePath()).examined(probablySql);
         }
-        AtomicReference<List<DatabaseColumnsUsed.Row>> rows = new AtomicReference<>();
-        Statement statement;
-        try {
-            statement = CCJSqlParserUtil.parse(maybeSql);
-        } catch (JSQLParserException e) {
-            return emptyList(); // not a valid SQL statement
+        if (!probablySql) {
+            return;
         }
 
-        StatementVisitorAdapter statementVisitor = new StatementVisitorAdapter() {
-            final Stack<DatabaseColumnsUsed.Operation> operation = new Stack<>();
-            final Stack<String> table = new Stack<>();
-
-            @Override
-            public void visit(Select select) {
-                operation.push(DatabaseColumnsUsed.Operation.SELECT);
-                select.accept(new SelectVisitorAdapter() {
-                    @Override
-                    public void visit(PlainSelect plainSelect) {
-                        if (plainSelect.getFromItem() instanceof Table) {
-                            Table t = (Table) plainSelect.getFromItem();
-                            table.push(t.getName());
-                            for (SelectItem<?> selectItem : plainSelect.getSelectItems()) {
-                                selectItem.accept(new ColumnDetector(rows, sourceFile, lineNumber, commitHash,
-                                        operation.peek(), table.peek()));
-                            }
-                            table.pop();
-                        }
-                        super.visit(plainSelect);
-                    }
+        SqlEvent.@Nullable Started event = SqlEvent.DETECT_ROWS.begin();
+        if (event == null) {
+            detectRows(context, lineNumber, maybeSql, parallelism, rows);
+        } else {
+            int[] count = new int[1];
+            String outcome = "failed";
+            try {
+                detectRows(context, lineNumber, maybeSql, parallelism, row -> {
+                    count[0]++;
+                    rows.accept(row);
                 });
-                operation.pop();
+                outcome = "detected";
+            } finally {
+                event.commit(context.getSourcePath(), maybeSql.length(), outcome, count[0]);
             }
+        }
+    }
 
-            @Override
-            public void visit(Update update) {
-                operation.push(DatabaseColumnsUsed.Operation.UPDATE);
-                Table t = update.getTable();
-                table.push(t.getName());
-                for (UpdateSet set : update.getUpdateSets()) {
-                    for (Column column : set.getColumns()) {
-                        column.accept(new ColumnDetector(rows, sourceFile, lineNumber, commitHash, operation.peek(),
-                                table.peek()));
-                    }
+    private void detectRows(SqlScanContext context, int lineNumber, String maybeSql, int parallelism,
+                            Consumer<DatabaseColumnsUsed.Row> rows) {
+        if (parallelism <= 1 || maybeSql.length() < PARALLEL_THRESHOLD_LENGTH) {
+            for (SqlStatementSplitter.Fragment fragment : new SqlStatementSplitter(maybeSql)) {
+                if (probablySql(fragment.getText())) {
+                    rows(context, lineNumber + fragment.getLine() - 1, fragment.getText(), rows);
                 }
-                table.pop();
-                operation.pop();
             }
+            return;
+        }
 
-            @Override
-            public void visit(Delete delete) {
-                operation.push(DatabaseColumnsUsed.Operation.DELETE);
-                for (Table table : delete.getTables()) {
-                    addRow(rows, new DatabaseColumnsUsed.Row(
-                            separatorsToUnix(sourceFile.getSourcePath().toString()),
-                            lineNumber,
-                            commitHash,
-                            operation.peek(),
-                            table.getName(),
-                            null
-                    ));
+        // split lazily and keep a window of statements in flight, reporting them in order as it drains,
+        // so that neither the statements nor their rows pile up for a large script
+        int window = parallelism * IN_FLIGHT_PER_THREAD;
+        Deque<Future<List<DatabaseColumnsUsed.Row>>> inFlight = new ArrayDeque<>(window);
+        try {
+            for (SqlStatementSplitter.Fragment fragment : new SqlStatementSplitter(maybeSql)) {
+                if (!probablySql(fragment.getText())) {
+                    continue;
                 }
-                if (delete.getTable() != null) {
-                    addRow(rows, new DatabaseColumnsUsed.Row(
-                            separatorsToUnix(sourceFile.getSourcePath().toString()),
-                            lineNumber,
-                            commitHash,
-                            operation.peek(),
-                            delete.getTable().getName(),
-                            null
-                    ));
+                if (inFlight.size() == window) {
+                    inFlight.removeFirst().get().forEach(rows);
                 }
-                operation.pop();
+                inFlight.addLast(ForkJoinPool.commonPool().submit(() -> {
+                    List<DatabaseColumnsUsed.Row> fragmentRows = new ArrayList<>();
+                    rows(context, lineNumber + fragment.getLine() - 1, fragment.getText(), fragmentRows::add);
+                    return fragmentRows;
+                }));
             }
-        };
-
-        statement.accept(statementVisitor);
-        return rows.get() == null ? emptyList() : rows.get();
+            while (!inFlight.isEmpty()) {
+                inFlight.removeFirst().get().forEach(rows);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while analyzing " + context.getSourcePath(), e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            // stop analyzing the rest of the window if a statement failed
+            for (Future<List<DatabaseColumnsUsed.Row>> f : inFlight) {
+                f.cancel(false);
+            }
+        }
     }
 
-    private boolean probablySql(@Nullable String maybeSql) {
-        return maybeSql != null && SIMPLE_SQL_HEURISTIC.matcher(maybeSql).find();
+    private void rows(SqlScanContext context, int lineNumber, String sql, Consumer<DatabaseColumnsUsed.Row> rows) {
+        Statement statement = parseCache.parse(sql, counters(context.getSourcePath()));
+        if (statement != null) {
+            statement.accept(new ColumnCollector(context, lineNumber, strings, rows));
+        }
     }
 
-    private boolean probablyDdl(@Nullable String maybeDdl) {
-        return maybeDdl != null && SIMPLE_DDL_HEURISTIC.matcher(maybeDdl).find();
+    public boolean isSql(@Nullable String maybeSql) {
+        return isSql(maybeSql, null);
     }
 
-    public boolean isSql(@Nullable String maybeSql) {
-        if (probablySql(maybeSql) || probablyDdl(maybeSql)) {
-            try {
-                for (String sql : maybeSql.split(";")) {
-                    CCJSqlParserUtil.parse(sql);
+    /**
+     * @param sourcePath The source file the string was found in, to attribute slow statements to.
+     */
+    public boolean isSql(@Nullable String maybeSql, @Nullable String sourcePath) {
+        boolean probablySql = probablySqlOrDdl(maybeSql);
+        SqlStatistics.@Nullable Counters counters = maybeSql == null ? null : counters(sourcePath);
+        if (counters != null) {
+            counters.examined(probablySql);
+        }
+        if (probablySql) {
+            boolean any = false;
+            for (SqlStatementSplitter.Fragment fragment : new SqlStatementSplitter(maybeSql)) {
+                if (parseCache.parse(fragment.getText(), counters) == null) {
+                    return false; // not a valid SQL statement
                 }
-                return true;
-            } catch (JSQLParserException e) {
-                // not a valid SQL statement
+                any = true;
             }
+            return any;
         }
         return false;
     }
 
-    @Value
-    @EqualsAndHashCode(callSuper = false)
-    private static class ColumnDetector extends ExpressionVisitorAdapter {
-        AtomicReference<List<DatabaseColumnsUsed.Row>> rows;
-        SourceFile sourceFile;
-        int lineNumber;
-
-        @Nullable
-        String commitHash;
-
-        DatabaseColumnsUsed.Operation operation;
-        String table;
-
-        @Override
-        public void visit(AllColumns columns) {
-            addRowForColumnName(columns.toString());
-        }
-
-        @Override
-        public void visit(Column column) {
-            addRowForColumnName(column.getColumnName());
-        }
-
-        private void addRowForColumnName(String columnName) {
-            addRow(rows, new DatabaseColumnsUsed.Row(
-                    separatorsToUnix(sourceFile.getSourcePath().toString()),
-                    lineNumber,
-                    commitHash,
-                    operation,
-                    table,
-                    columnName
-            ));
-        }
-    }
-
-    private static void addRow(AtomicReference<List<DatabaseColumnsUsed.Row>> rows, DatabaseColumnsUsed.Row row) {
-        rows.getAndUpdate(acc -> {
-            List<DatabaseColumnsUsed.Row> rs = acc == null ? new ArrayList<>() : acc;
-            rs.add(row);
-            return rs;
-        });
+    private SqlStatistics.@Nullable Counters counters(@Nullable String sourcePath) {
+        return statistics == null ? null : statistics.counters(sourcePath);
     }
 }
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2024 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.sql;
+
+import org.openrewrite.Cursor;
+import org.openrewrite.ExecutionContext;
+import org.openrewrite.SourceFile;
+import org.openrewrite.Tree;
+
+/**
+ * Extracts candidate SQL strings from one type of source file for {@link FindSql}. Each source
+ * file is walked once, by the first extractor that accepts it. Besides the built-in extractors for
+ * plain text, Java and YAML, implementations are discovered with {@link java.util.ServiceLoader}.
+ * <p>
+ * Extractors need not track line numbers. {@link FindSql} derives them afterward from the
+ * printed source file, and only for source files that contain SQL.
+ */
+public interface SqlExtractor {
+
+    boolean isAcceptable(SourceFile sourceFile);
+
+    /**
+     * @return The source file, where every tree passed to the handler is replaced with the tree it returned.
+     */
+    SourceFile extract(SourceFile sourceFile, Handler handler, ExecutionContext ctx);
+
+    @FunctionalInterface
+    interface Handler {
+        /**
+         * @param cursor A cursor pointing at the tree that holds the candidate SQL.
+         * @param text   The candidate SQL.
+         * @return The tree the cursor points at, marked if it holds SQL.
+         */
+        Tree handle(Cursor cursor, String text);
+    }
+}
@@ -0,0 +1,338 @@
+/*
+ * Copyright 2023 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.sql;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Value;
+import net.sf.jsqlparser.JSQLParserException;
+import net.sf.jsqlparser.expression.ExpressionVisitorAdapter;
+import net.sf.jsqlparser.expression.Function;
+import net.sf.jsqlparser.statement.Statement;
+import org.jspecify.annotations.Nullable;
+import org.openrewrite.*;
+import org.openrewrite.config.DataTableDescriptor;
+import org.openrewrite.marker.SearchResult;
+import org.openrewrite.sql.internal.ChangeTrackingExpressionDeParser;
+import org.openrewrite.sql.internal.QueryId;
+import org.openrewrite.sql.internal.SqlEdits;
+import org.openrewrite.sql.internal.SqlParser;
+import org.openrewrite.sql.internal.SqlScanContext;
+import org.openrewrite.sql.internal.SqlStatementWalker;
+import org.openrewrite.sql.internal.SqlStatistics;
+import org.openrewrite.sql.internal.StringInterner;
+import org.openrewrite.sql.table.DatabaseFunctions;
+import org.openrewrite.sql.table.DatabaseQueries;
+import org.openrewrite.sql.table.SqlProcessingStatistics;
+import org.openrewrite.sql.trait.SqlQuery;
+
+import java.util.*;
+
+import static org.openrewrite.sql.trait.Traits.sql;
+
+/**
+ * Runs several SQL recipes with a single match, parse and walk of each SQL query, instead of
+ * each recipe finding, parsing and walking every query again. Handlers are called for each
+ * function in the order their participants are listed and see the renames made by the handlers
+ * before them, so the result is the same as running the participants one after another.
+ * <p>
+ * Recipes that aren't {@link Participant}s, like {@link FindSql}, which analyzes whole source files
+ * rather than the functions of each query, run after the participants as they would on their own.
+ */
+@Value
+@EqualsAndHashCode(callSuper = false)
+public class SqlPipeline extends Recipe {
+    transient SqlProcessingStatistics processingStatistics = new SqlProcessingStatistics(this);
+
+    @Option(displayName = "Recipes",
+            description = "The SQL recipes to run, in order. `FindFunction`, `ChangeFunctionName` and " +
+                          "`ChangeFunctionNames` share one parse and walk of each query. Other recipes, such as " +
+                          "`FindSql`, run after them as usual.")
+    List<Recipe> recipes;
+
+    @JsonCreator
+    public SqlPipeline(@JsonProperty("recipes") List<Recipe> recipes) {
+        this.recipes = recipes;
+    }
+
+    @Override
+    public String getDisplayName() {
+        return "Run SQL recipes in one pass";
+    }
+
+    @Override
+    public String getDescription() {
+        return "Runs `FindFunction`, `ChangeFunctionName` and other participating SQL recipes together, " +
+               "parsing and traversing each SQL query once for all of them. Renames are applied in the " +
+               "order the recipes are listed.";
+    }
+
+    @Override
+    public TreeVisitor<?, ExecutionContext> getVisitor() {
+        return visitor(this, participants());
+    }
+
+    @Override
+    public List<Recipe> getRecipeList() {
+        List<Recipe> others = new ArrayList<>();
+        for (Recipe recipe : recipes) {
+            if (!(recipe instanceof Participant)) {
+                others.add(recipe);
+            }
+        }
+        return others;
+    }
+
+    /**
+     * Participants don't run on their own, so the data tables they write to are listed here.
+     */
+    @Override
+    public List<DataTableDescriptor> getDataTableDescriptors() {
+        Map<String, DataTableDescriptor> descriptors = new LinkedHashMap<>();
+        for (DataTableDescriptor descriptor : super.getDataTableDescriptors()) {
+            descriptors.put(descriptor.getName(), descriptor);
+        }
+        for (Participant participant : participants()) {
+            for (DataTableDescriptor descriptor : ((Recipe) participant).getDataTableDescriptors()) {
+                descriptors.putIfAbsent(descriptor.getName(), descriptor);
+            }
+        }
+        return new ArrayList<>(descriptors.values());
+    }
+
+    /**
+     * The statistics of the shared pass are reported once, for the pipeline, since the participants
+     * examine and parse nothing of their own. Each participant still completes as it would alone.
+     */
+    @Override
+    public void onComplete(ExecutionContext ctx) {
+        SqlStatistics.get(ctx).report(ctx, getName(), processingStatistics);
+        for (Participant participant : participants()) {
+            ((Recipe) participant).onComplete(ctx);
+        }
+    }
+
+    private List<Participant> participants() {
+        List<Participant> participants = new ArrayList<>();
+        for (Recipe recipe : recipes) {
+            if (recipe instanceof Participant) {
+                participants.add((Participant) recipe);
+            }
+        }
+        return participants;
+    }
+
+    /**
+     * @param recipe The recipe running the pipeline, which statistics are recorded for.
+     * @return A visitor running the handlers of the participants over each SQL query.
+     */
+    public static TreeVisitor<?, ExecutionContext> visitor(Recipe recipe, List<? extends Participant> participants) {
+        List<Handler> handlers = new ArrayList<>(participants.size());
+        for (Participant participant : participants) {
+            handlers.add(participant.newHandler());
+        }
+
+        return sql().recordStatistics(recipe.getName()).asVisitor((sql, ctx) -> {
+            Query query = new Query(sql, ctx);
+            sql.walk(new ExpressionVisitorAdapter() {
+                @Override
+                public void visit(Function function) {
+                    for (Handler handler : handlers) {
+                        handler.visitFunction(query, function);
+                    }
+                    super.visit(function);
+                }
+            });
+            return query.apply();
+        });
+    }
+
+    /**
+     * A SQL recipe that can run as part of a {@link SqlPipeline}. Only recipes implement it.
+     */
+    public interface Participant {
+        /**
+         * @return A handler for one run of the recipe, whether alone or in a pipeline.
+         */
+        Handler newHandler();
+    }
+
+    public interface Handler {
+        /**
+         * Called for every function of the statement, including those in subqueries.
+         * Decisions should depend only on the function's {@linkplain Query#getFunctionName(Function) current name},
+         * since the statement is shared and must not be modified.
+         */
+        void visitFunction(Query query, Function function);
+    }
+
+    /**
+     * One SQL query passing through the pipeline, collecting what the handlers
+     * decided about it until every handler has seen the whole statement.
+     */
+    public static class Query {
+        @Getter
+        private final SqlQuery sql;
+
+        @Getter
+        private final ExecutionContext ctx;
+
+        @Nullable
+        private Map<Function, String> renames;
+
+        private boolean found;
+
+        @Nullable
+        private String query;
+
+        @Nullable
+        private String queryId;
+
+        Query(SqlQuery sql, ExecutionContext ctx) {
+            this.sql = sql;
+            this.ctx = ctx;
+        }
+
+        /**
+         * @return The name of the function after the renames made by earlier handlers.
+         */
+        public String getFunctionName(Function function) {
+            String name = renames == null ? null : renames.get(function);
+            return name == null ? function.getName() : name;
+        }
+
+        public void renameFunction(Function function, String newName) {
+            if (renames == null) {
+                renames = new IdentityHashMap<>();
+            }
+            renames.put(function, newName);
+        }
+
+        /**
+         * Marks the query with a {@link SearchResult} once all handlers are done.
+         */
+        public void markFound() {
+            found = true;
+        }
+
+        /**
+         * @return The interned path of the source file the query was found in, or an empty string
+         * when the query was matched outside of a source file.
+         */
+        public String getSourcePath() {
+            SqlScanContext scanContext = sql.getScanContext();
+            return scanContext == null ? "" : StringInterner.get(ctx).intern(scanContext.getSourcePath());
+        }
+
+        /**
+         * Records a function call in the query to a recipe's data tables, storing the query
+         * itself once and the function by its lower case name.
+         */
+        public void insertFunctionRows(DatabaseQueries queries, DatabaseFunctions functions, String functionName) {
+            queries.insertDistinctRow(ctx, new DatabaseQueries.Row(getSourcePath(), getQueryId(), getQuery()));
+            functions.insertRow(ctx, new DatabaseFunctions.Row(
+                    getSourcePath(),
+                    getQueryId(),
+                    StringInterner.get(ctx).intern(functionName.toLowerCase(Locale.ROOT))
+            ));
+        }
+
+        /**
+         * @return The interned text of the query as it was before any rename.
+         */
+        public String getQuery() {
+            if (query == null) {
+                query = StringInterner.get(ctx).intern(sql.getString());
+            }
+            return query;
+        }
+
+        public String getQueryId() {
+            if (queryId == null) {
+                queryId = StringInterner.get(ctx).intern(QueryId.of(getQuery()));
+            }
+            return queryId;
+        }
+
+        Tree apply() {
+            Tree tree = renames == null ? sql.getTree() : rename(renames);
+            return found ? SearchResult.found(tree) : tree;
+        }
+
+        private Tree rename(Map<Function, String> renames) {
+            SqlEdits edits = new SqlEdits(sql.getString());
+            for (Map.Entry<Function, String> rename : renames.entrySet()) {
+                Function function = rename.getKey();
+                if (!function.getName().equals(rename.getValue())) {
+                    edits.replaceName(function, function.getName(), rename.getValue());
+                }
+            }
+            if (edits.isLocated()) {
+                return edits.isEmpty() ? sql.getTree() : sql.withSql(edits.apply());
+            }
+
+            // the parser kept no position for some function, so print the whole statement instead,
+            // replaying the renames on a private copy of it. Walks visit the functions of both in the
+            // same order, which pairs each function of the copy with the one the handlers chose
+            Statement copy;
+            try {
+                copy = SqlParser.parse(sql.getString());
+            } catch (JSQLParserException e) {
+                return sql.getTree();
+            }
+            List<Function> originals = functions(sql.getStatement());
+            List<Function> copies = functions(copy);
+            if (originals.size() != copies.size()) {
+                return sql.getTree();
+            }
+            Map<Function, String> copyRenames = new IdentityHashMap<>();
+            for (int i = 0; i < originals.size(); i++) {
+                String newName = renames.get(originals.get(i));
+                if (newName != null) {
+                    copyRenames.put(copies.get(i), newName);
+                }
+            }
+            return sql.visitSql(new ChangeTrackingExpressionDeParser() {
+                @Override
+                public void visit(Function function) {
+                    String newName = copyRenames.get(function);
+                    if (newName != null) {
+                        trackChange(() -> {
+                            function.setName(newName);
+                            super.visit(function);
+                        });
+                    } else {
+                        super.visit(function);
+                    }
+                }
+            }, copy);
+        }
+
+        private static List<Function> functions(Statement statement) {
+            List<Function> functions = new ArrayList<>();
+            statement.accept(new SqlStatementWalker(new ExpressionVisitorAdapter() {
+                @Override
+                public void visit(Function function) {
+                    functions.add(function);
+                    super.visit(function);
+                }
+            }));
+            return functions;
+        }
+    }
+}
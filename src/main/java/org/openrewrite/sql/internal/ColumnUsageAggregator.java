@@ -0,0 +1,110 @@
+/*
+ * Copyright 2024 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.sql.internal;
+
+import lombok.Value;
+import org.jspecify.annotations.Nullable;
+import org.openrewrite.sql.table.DatabaseColumnUsage;
+import org.openrewrite.sql.table.DatabaseColumnsUsed;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts column usage by table, column and operation instead of keeping a row per occurrence,
+ * so that memory is proportional to the size of the schema rather than the size of the code.
+ * Alongside the counts, a few locations of each usage are kept as samples.
+ */
+public class ColumnUsageAggregator {
+    private static final int MAXIMUM_SAMPLES = 3;
+
+    private final Map<Key, Usage> usages = new ConcurrentHashMap<>();
+
+    /**
+     * @return The usage the row counts towards, which the caller hands to {@link #addSourceFile(Set)}
+     * once it has seen every row of the source file.
+     */
+    public Usage add(DatabaseColumnsUsed.Row row) {
+        Usage usage = usages.computeIfAbsent(new Key(row.getTable(), row.getColumn(), row.getOperation()),
+                k -> new Usage());
+        usage.occurrences.increment();
+        synchronized (usage.samples) {
+            if (usage.samples.size() < MAXIMUM_SAMPLES) {
+                usage.samples.add(row.getSourcePath() + ":" + row.getLineNumber());
+            }
+        }
+        return usage;
+    }
+
+    /**
+     * @param usages The distinct usages of one source file.
+     */
+    public void addSourceFile(Set<Usage> usages) {
+        for (Usage usage : usages) {
+            usage.sourceFiles.incrementAndGet();
+        }
+    }
+
+    /**
+     * @return A summary row per table, column and operation, ordered by table, column and operation.
+     */
+    public List<DatabaseColumnUsage.Row> summary() {
+        List<Map.Entry<Key, Usage>> entries = new ArrayList<>(usages.entrySet());
+        entries.sort(Map.Entry.comparingByKey(Comparator
+                .comparing(Key::getTable)
+                .thenComparing(Key::getColumn, Comparator.nullsFirst(Comparator.naturalOrder()))
+                .thenComparing(Key::getOperation)));
+        List<DatabaseColumnUsage.Row> rows = new ArrayList<>(entries.size());
+        for (Map.Entry<Key, Usage> entry : entries) {
+            Key key = entry.getKey();
+            Usage usage = entry.getValue();
+            String samples;
+            synchronized (usage.samples) {
+                samples = String.join(", ", usage.samples);
+            }
+            rows.add(new DatabaseColumnUsage.Row(
+                    key.getTable(),
+                    key.getColumn(),
+                    key.getOperation(),
+                    usage.occurrences.sum(),
+                    usage.sourceFiles.get(),
+                    samples
+            ));
+        }
+        return rows;
+    }
+
+    @Value
+    private static class Key {
+        String table;
+
+        @Nullable
+        String column;
+
+        DatabaseColumnsUsed.Operation operation;
+    }
+
+    /**
+     * Compared by identity, as there is one per table, column and operation.
+     */
+    public static class Usage {
+        private final LongAdder occurrences = new LongAdder();
+        private final AtomicInteger sourceFiles = new AtomicInteger();
+        private final List<String> samples = new ArrayList<>(MAXIMUM_SAMPLES);
+    }
+}
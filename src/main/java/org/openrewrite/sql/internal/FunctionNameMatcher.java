@@ -0,0 +1,85 @@
+/*
+ * Copyright 2024 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.sql.internal;
+
+import org.jspecify.annotations.Nullable;
+
+import java.util.regex.Pattern;
+
+/**
+ * Matches function names against a case-insensitive glob, where {@code *} matches any
+ * sequence of characters and {@code ?} any single character. The pattern is compiled once.
+ * A pattern without wildcards is compared by length and a hash of the lower-cased name before
+ * the characters are compared, and neither path allocates for names that don't match.
+ */
+public class FunctionNameMatcher {
+    @Nullable
+    private final String exactName;
+
+    private final int exactNameHash;
+
+    @Nullable
+    private final Pattern glob;
+
+    private FunctionNameMatcher(@Nullable String exactName, @Nullable Pattern glob) {
+        this.exactName = exactName;
+        this.exactNameHash = exactName == null ? 0 : lowerCaseHash(exactName);
+        this.glob = glob;
+    }
+
+    public static FunctionNameMatcher compile(String pattern) {
+        if (pattern.indexOf('*') < 0 && pattern.indexOf('?') < 0) {
+            return new FunctionNameMatcher(pattern, null);
+        }
+        StringBuilder regex = new StringBuilder(pattern.length() + 8);
+        int literalStart = 0;
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (c == '*' || c == '?') {
+                if (literalStart < i) {
+                    regex.append(Pattern.quote(pattern.substring(literalStart, i)));
+                }
+                regex.append(c == '*' ? ".*" : ".");
+                literalStart = i + 1;
+            }
+        }
+        if (literalStart < pattern.length()) {
+            regex.append(Pattern.quote(pattern.substring(literalStart)));
+        }
+        return new FunctionNameMatcher(null, Pattern.compile(regex.toString(),
+                Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE | Pattern.DOTALL));
+    }
+
+    public boolean matches(@Nullable String name) {
+        if (name == null) {
+            return false;
+        } else if (exactName != null) {
+            return name.length() == exactName.length() &&
+                   lowerCaseHash(name) == exactNameHash &&
+                   name.equalsIgnoreCase(exactName);
+        }
+        //noinspection DataFlowIssue
+        return glob.matcher(name).matches();
+    }
+
+    private static int lowerCaseHash(String s) {
+        int h = 0;
+        for (int i = 0; i < s.length(); i++) {
+            h = 31 * h + Character.toLowerCase(s.charAt(i));
+        }
+        return h;
+    }
+}
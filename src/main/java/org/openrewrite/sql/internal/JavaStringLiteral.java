@@ -0,0 +1,275 @@
+/*
+ * Copyright 2023 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.sql.internal;
+
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Changes the value of a Java string literal or text block by editing its source, so that the
+ * delimiters, the indentation of a text block and the escape sequences of everything outside the
+ * changed characters are kept as the author wrote them.
+ */
+public class JavaStringLiteral {
+    private static final String TEXT_BLOCK = "\"\"\"";
+
+    private JavaStringLiteral() {
+    }
+
+    /**
+     * @param valueSource The source of the literal, including its delimiters.
+     * @param value       The value the source evaluates to.
+     * @param newValue    The value the literal should have.
+     * @return The source of a literal of the same kind whose value is {@code newValue}.
+     */
+    public static String withValue(@Nullable String valueSource, String value, String newValue) {
+        boolean textBlock = valueSource != null && valueSource.startsWith(TEXT_BLOCK);
+        int[] offsets = valueSource == null ? null : textBlock ?
+                textBlockOffsets(valueSource, value) :
+                stringOffsets(valueSource, value);
+        if (valueSource == null || offsets == null) {
+            return textBlock ? textBlock(valueSource, newValue) : "\"" + escape(newValue, false, "") + "\"";
+        }
+
+        // only the characters between the common prefix and suffix of the old and new values change
+        int prefix = 0;
+        int max = Math.min(value.length(), newValue.length());
+        while (prefix < max && value.charAt(prefix) == newValue.charAt(prefix)) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < max - prefix &&
+               value.charAt(value.length() - 1 - suffix) == newValue.charAt(newValue.length() - 1 - suffix)) {
+            suffix++;
+        }
+
+        String indentation = textBlock ? indentation(valueSource) : "";
+        String replacement = escape(newValue.substring(prefix, newValue.length() - suffix), textBlock, indentation);
+        if (textBlock && !replacement.isEmpty() && valueSource.charAt(offsets[prefix] - 1) == '\n') {
+            // text appended after the last line of a text block starts a new, indented line
+            replacement = indentation + replacement;
+        }
+        return valueSource.substring(0, offsets[prefix]) +
+               replacement +
+               valueSource.substring(offsets[value.length() - suffix]);
+    }
+
+    /**
+     * @return The offset in the source of each character of a string literal's value, followed by the
+     * offset just past the source of its last character, or {@code null} if the source doesn't
+     * evaluate to {@code value}.
+     */
+    private static int @Nullable [] stringOffsets(String source, String value) {
+        if (source.length() < 2 || source.charAt(0) != '"' || source.charAt(source.length() - 1) != '"') {
+            return null;
+        }
+        int[] starts = new int[source.length()];
+        StringBuilder content = new StringBuilder();
+        for (int i = 1; i < source.length() - 1; i++) {
+            starts[content.length()] = i;
+            content.append(source.charAt(i));
+        }
+        return unescape(content, starts, source.length() - 1, value);
+    }
+
+    /**
+     * @return The offset in the source of each character of a text block's value, followed by the offset
+     * just past the source of its last character, or {@code null} if the source doesn't evaluate to
+     * {@code value}. Follows the rules of JLS 3.10.6: incidental indentation and trailing white space
+     * are stripped before escape sequences are interpreted.
+     */
+    private static int @Nullable [] textBlockOffsets(String source, String value) {
+        if (source.length() < 7 || !source.endsWith(TEXT_BLOCK)) {
+            return null;
+        }
+        int start = source.indexOf('\n', TEXT_BLOCK.length());
+        int end = source.length() - TEXT_BLOCK.length();
+        if (start < 0 || start >= end) {
+            return null;
+        }
+        start++;
+
+        int indentation = indentation(source).length();
+        int[] starts = new int[source.length()];
+        StringBuilder content = new StringBuilder();
+        for (int lineStart = start; lineStart <= end; ) {
+            int lineEnd = lineEnd(source, lineStart, end);
+            int stripped = lineEnd;
+            while (stripped > lineStart && Character.isWhitespace(source.charAt(stripped - 1))) {
+                stripped--;
+            }
+            for (int i = Math.min(lineStart + indentation, stripped); i < stripped; i++) {
+                starts[content.length()] = i;
+                content.append(source.charAt(i));
+            }
+            if (lineEnd == end) {
+                break;
+            }
+            starts[content.length()] = lineEnd;
+            content.append('\n');
+            lineStart = lineEnd + 1;
+        }
+        return unescape(content, starts, end, value);
+    }
+
+    /**
+     * @return The offset of the line terminator that ends the line, or {@code end} for the last line.
+     * A carriage return before the line feed counts as trailing white space.
+     */
+    private static int lineEnd(String source, int lineStart, int end) {
+        int lineEnd = source.indexOf('\n', lineStart);
+        return lineEnd < 0 || lineEnd > end ? end : lineEnd;
+    }
+
+    private static int @Nullable [] unescape(CharSequence content, int[] starts, int end, String value) {
+        int[] offsets = new int[value.length() + 1];
+        int n = 0;
+        for (int i = 0; i < content.length(); n++) {
+            int start = starts[i];
+            char c = content.charAt(i++);
+            if (c == '\\' && i < content.length()) {
+                char escaped = content.charAt(i++);
+                switch (escaped) {
+                    case 'b':
+                        c = '\b';
+                        break;
+                    case 's':
+                        c = ' ';
+                        break;
+                    case 't':
+                        c = '\t';
+                        break;
+                    case 'n':
+                        c = '\n';
+                        break;
+                    case 'f':
+                        c = '\f';
+                        break;
+                    case 'r':
+                        c = '\r';
+                        break;
+                    case '\n':
+                        // a line continuation in a text block
+                        n--;
+                        continue;
+                    case 'u':
+                        while (i < content.length() && content.charAt(i) == 'u') {
+                            i++;
+                        }
+                        if (i + 4 > content.length()) {
+                            return null;
+                        }
+                        try {
+                            c = (char) Integer.parseInt(content.subSequence(i, i + 4).toString(), 16);
+                        } catch (NumberFormatException e) {
+                            return null;
+                        }
+                        i += 4;
+                        break;
+                    default:
+                        if (escaped >= '0' && escaped <= '7') {
+                            int octal = escaped - '0';
+                            int digits = escaped <= '3' ? 2 : 1;
+                            while (digits-- > 0 && i < content.length() &&
+                                   content.charAt(i) >= '0' && content.charAt(i) <= '7') {
+                                octal = octal * 8 + content.charAt(i++) - '0';
+                            }
+                            c = (char) octal;
+                        } else {
+                            c = escaped;
+                        }
+                }
+            }
+            if (n >= value.length() || value.charAt(n) != c) {
+                return null;
+            }
+            offsets[n] = start;
+            end = starts[i - 1] + 1;
+        }
+        if (n != value.length()) {
+            return null;
+        }
+        offsets[n] = end;
+        return offsets;
+    }
+
+    private static String escape(String s, boolean textBlock, String indentation) {
+        StringBuilder escaped = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '\\':
+                    escaped.append("\\\\");
+                    break;
+                case '"':
+                    escaped.append("\\\"");
+                    break;
+                case '\n':
+                    if (textBlock) {
+                        escaped.append('\n').append(indentation);
+                    } else {
+                        escaped.append("\\n");
+                    }
+                    break;
+                case '\r':
+                    escaped.append("\\r");
+                    break;
+                case '\t':
+                    escaped.append("\\t");
+                    break;
+                default:
+                    escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+
+    /**
+     * @return A text block holding {@code value}, indented like the original one.
+     */
+    private static String textBlock(@Nullable String valueSource, String value) {
+        String indentation = valueSource == null ? "" : indentation(valueSource);
+        return TEXT_BLOCK + "\n" + indentation + escape(value, true, indentation) +
+               (value.endsWith("\n") ? "" : "\\\n" + indentation) + TEXT_BLOCK;
+    }
+
+    /**
+     * @return The incidental indentation of a text block: the shortest run of leading white space on
+     * its non-blank lines and the line holding the closing delimiter.
+     */
+    private static String indentation(String textBlock) {
+        int lineStart = textBlock.indexOf('\n') + 1;
+        int end = textBlock.endsWith(TEXT_BLOCK) ? textBlock.length() - TEXT_BLOCK.length() : textBlock.length();
+        if (lineStart <= 0 || lineStart > end) {
+            return "";
+        }
+        String indentation = null;
+        while (true) {
+            int lineEnd = lineEnd(textBlock, lineStart, end);
+            int firstNonWhitespace = lineStart;
+            while (firstNonWhitespace < lineEnd && Character.isWhitespace(textBlock.charAt(firstNonWhitespace))) {
+                firstNonWhitespace++;
+            }
+            if ((firstNonWhitespace < lineEnd || lineEnd == end) &&
+                (indentation == null || firstNonWhitespace - lineStart < indentation.length())) {
+                indentation = textBlock.substring(lineStart, firstNonWhitespace);
+            }
+            if (lineEnd == end) {
+                return indentation;
+            }
+            lineStart = lineEnd + 1;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2024 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.sql.internal;
+
+import org.jspecify.annotations.Nullable;
+import org.openrewrite.Cursor;
+import org.openrewrite.PrintOutputCapture;
+import org.openrewrite.SourceFile;
+import org.openrewrite.marker.Marker;
+
+import java.util.*;
+import java.util.function.UnaryOperator;
+
+/**
+ * Maps character offsets in a printed source file to one-based line numbers by binary
+ * search over the offsets at which lines start, collected in one scan of the text.
+ */
+public class LineIndex {
+    private final int[] lineStarts;
+    private final int lines;
+
+    private LineIndex(int[] lineStarts, int lines) {
+        this.lineStarts = lineStarts;
+        this.lines = lines;
+    }
+
+    public static LineIndex of(CharSequence text) {
+        int[] lineStarts = new int[64];
+        int lines = 1;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '\n') {
+                if (lines == lineStarts.length) {
+                    lineStarts = Arrays.copyOf(lineStarts, lines * 2);
+                }
+                lineStarts[lines++] = i + 1;
+            }
+        }
+        return new LineIndex(lineStarts, lines);
+    }
+
+    public int lineOf(int offset) {
+        int i = Arrays.binarySearch(lineStarts, 0, lines, offset);
+        return i >= 0 ? i + 1 : -i - 1;
+    }
+
+    /**
+     * Prints the source file once, recording where the syntax of each tree that carries one of the
+     * given markers begins.
+     *
+     * @return The one-based line number for each of the marker IDs that were found.
+     */
+    public static Map<UUID, Integer> markerLines(SourceFile sourceFile, Set<UUID> markerIds) {
+        MarkerOffsets markerOffsets = new MarkerOffsets(markerIds);
+        PrintOutputCapture<Integer> out = new PrintOutputCapture<>(0, markerOffsets);
+        markerOffsets.out = out;
+        sourceFile.printAll(out);
+
+        LineIndex index = of(out.getOut());
+        Map<UUID, Integer> lines = new HashMap<>(markerOffsets.offsets.size());
+        for (Map.Entry<UUID, Integer> offset : markerOffsets.offsets.entrySet()) {
+            lines.put(offset.getKey(), index.lineOf(offset.getValue()));
+        }
+        return lines;
+    }
+
+    /**
+     * Prints no markers at all, so that offsets refer to the original source text.
+     */
+    private static class MarkerOffsets implements PrintOutputCapture.MarkerPrinter {
+        private final Set<UUID> markerIds;
+        private final Map<UUID, Integer> offsets = new HashMap<>();
+
+        @Nullable
+        private PrintOutputCapture<Integer> out;
+
+        MarkerOffsets(Set<UUID> markerIds) {
+            this.markerIds = markerIds;
+        }
+
+        @Override
+        public String beforeSyntax(Marker marker, Cursor cursor, UnaryOperator<String> commentWrapper) {
+            if (out != null && markerIds.contains(marker.getId())) {
+                offsets.putIfAbsent(marker.getId(), out.getOut().length());
+            }
+            return "";
+        }
+    }
+}
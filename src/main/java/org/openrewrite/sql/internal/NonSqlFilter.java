@@ -0,0 +1,117 @@
+/*
+ * Copyright 2024 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.sql.internal;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed-size set of 64-bit fingerprints of strings that are known not to parse as SQL.
+ * <p>
+ * Unlike a Bloom filter, a false positive requires a full 64-bit fingerprint collision, so
+ * the chance of rejecting a valid statement is negligible, while each remembered string still
+ * costs only eight bytes. When the slots a fingerprint may occupy are all taken, the oldest
+ * candidate slot is overwritten, so the memory budget is fixed and the filter never fills up.
+ * <p>
+ * The filter can be saved and loaded so that one scan benefits from what the previous one learned.
+ */
+public class NonSqlFilter {
+    private static final int MAGIC = 0x53514c4e; // "SQLN"
+    private static final int PROBES = 8;
+
+    private final AtomicLongArray fingerprints;
+    private final int mask;
+
+    /**
+     * @param capacity The number of fingerprints to hold, rounded up to a power of two.
+     */
+    public NonSqlFilter(int capacity) {
+        int size = Integer.highestOneBit(Math.max(PROBES, capacity - 1)) << 1;
+        this.fingerprints = new AtomicLongArray(size);
+        this.mask = size - 1;
+    }
+
+    public boolean mightContain(String s) {
+        long fingerprint = fingerprint(s);
+        int slot = (int) fingerprint & mask;
+        for (int i = 0; i < PROBES; i++) {
+            long f = fingerprints.get((slot + i) & mask);
+            if (f == fingerprint) {
+                return true;
+            } else if (f == 0) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    public void add(String s) {
+        long fingerprint = fingerprint(s);
+        int slot = (int) fingerprint & mask;
+        for (int i = 0; i < PROBES; i++) {
+            int index = (slot + i) & mask;
+            long f = fingerprints.get(index);
+            if (f == fingerprint || (f == 0 && fingerprints.compareAndSet(index, 0, fingerprint))) {
+                return;
+            }
+        }
+        // every candidate slot is taken, so evict from the home slot
+        fingerprints.set(slot, fingerprint);
+    }
+
+    public void save(Path path) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(fingerprints.length());
+            for (int i = 0; i < fingerprints.length(); i++) {
+                out.writeLong(fingerprints.get(i));
+            }
+        }
+    }
+
+    public static NonSqlFilter load(Path path) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a saved non-SQL filter: " + path);
+            }
+            NonSqlFilter filter = new NonSqlFilter(in.readInt());
+            for (int i = 0; i < filter.fingerprints.length(); i++) {
+                filter.fingerprints.set(i, in.readLong());
+            }
+            return filter;
+        }
+    }
+
+    /**
+     * 64-bit FNV-1a over the UTF-16 code units, followed by the MurmurHash3 finalizer
+     * so that the low bits used for slot selection are well mixed. Zero marks an empty slot.
+     */
+    static long fingerprint(String s) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < s.length(); i++) {
+            h ^= s.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h == 0 ? 1 : h;
+    }
+}
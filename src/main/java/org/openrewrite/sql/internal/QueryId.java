@@ -0,0 +1,50 @@
+/*
+ * Copyright 2024 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.sql.internal;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * A stable identity for query text, so that data tables can store a query once and refer to it
+ * from other rows. The same text always has the same ID, across runs and machines.
+ */
+public class QueryId {
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private QueryId() {
+    }
+
+    /**
+     * @return The first 64 bits of the SHA-256 digest of the query's UTF-8 bytes, as 16 hex digits.
+     */
+    public static String of(String query) {
+        byte[] digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256").digest(query.getBytes(UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is a required algorithm of every JVM", e);
+        }
+        char[] id = new char[16];
+        for (int i = 0; i < 8; i++) {
+            id[2 * i] = HEX[(digest[i] >> 4) & 0xf];
+            id[2 * i + 1] = HEX[digest[i] & 0xf];
+        }
+        return new String(id);
+    }
+}
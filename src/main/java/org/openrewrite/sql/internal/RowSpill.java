@@ -0,0 +1,353 @@
+/*
+ * Copyright 2024 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.sql.internal;
+
+import org.jspecify.annotations.Nullable;
+import org.openrewrite.ExecutionContext;
+
+import java.io.*;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Parameter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.requireNonNull;
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * An append-only CSV file of data table rows, for scans whose rows would not fit on the heap.
+ * Rows are appended in batches and the file is closed between batches, so nothing but the last
+ * batch is lost if a run ends without notice, and the rows are read back as the same row type for
+ * downstream use.
+ * <p>
+ * The file starts with a header of the row's field names, and columns are matched to fields by that
+ * header when reading, so the file doesn't depend on the order in which reflection lists the fields.
+ * A {@code null} value is written as an empty field and an empty string as {@code ""}. Fields that
+ * contain a delimiter, quote or line break are quoted. Rows may hold strings, primitives, their
+ * wrappers and enums, and must have a constructor taking every field, as Lombok's {@code @Value}
+ * generates. Its parameters are matched to fields by name when the row type was compiled with
+ * parameter names, and otherwise by type, taking fields of the same type in declaration order.
+ *
+ * @param <R> The data table row type.
+ */
+public class RowSpill<R> {
+    private static final int BATCH_SIZE = 1_024;
+
+    private final Class<R> rowType;
+    private final Path file;
+    private final Field[] fields;
+    private final List<R> batch = new ArrayList<>();
+
+    /**
+     * Whether the next append replaces what the file held before, rather than adding to it.
+     */
+    private boolean truncate;
+
+    /**
+     * Appends to the file, if it already exists.
+     */
+    public RowSpill(Class<R> rowType, Path file) {
+        this(rowType, file, false);
+    }
+
+    private RowSpill(Class<R> rowType, Path file, boolean truncate) {
+        this.rowType = rowType;
+        this.file = file;
+        this.truncate = truncate;
+        List<Field> fields = new ArrayList<>();
+        for (Field field : rowType.getDeclaredFields()) {
+            if (!Modifier.isStatic(field.getModifiers()) && !field.isSynthetic()) {
+                field.setAccessible(true);
+                fields.add(field);
+            }
+        }
+        this.fields = fields.toArray(new Field[0]);
+    }
+
+    /**
+     * @return The spill for a data table's rows in {@code directory}, shared by every recipe
+     * that spills the same data table in the same run. Its first append replaces any rows
+     * left in the file by a previous run.
+     */
+    public static <R> RowSpill<R> get(ExecutionContext ctx, Class<R> rowType, Path directory) {
+        Path file = directory.resolve(rowType.getName() + ".csv");
+        return ctx.computeMessageIfAbsent(RowSpill.class.getName() + ":" + file, k -> new RowSpill<>(rowType, file, true));
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Adds a row to the current batch, appending the batch to the file once it is full.
+     */
+    public synchronized void add(R row) {
+        batch.add(row);
+        if (batch.size() >= BATCH_SIZE) {
+            flush();
+        }
+    }
+
+    /**
+     * Appends the rows of the current batch to the file, typically when the run completes.
+     */
+    public synchronized void flush() {
+        append(batch);
+        batch.clear();
+    }
+
+    public synchronized void append(Collection<R> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        try {
+            boolean header = truncate || !Files.exists(file) || Files.size(file) == 0;
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            try (Writer out = truncate ?
+                    Files.newBufferedWriter(file, UTF_8, CREATE, TRUNCATE_EXISTING, WRITE) :
+                    Files.newBufferedWriter(file, UTF_8, CREATE, APPEND)) {
+                truncate = false;
+                if (header) {
+                    for (int i = 0; i < fields.length; i++) {
+                        if (i > 0) {
+                            out.write(',');
+                        }
+                        writeValue(out, fields[i].getName());
+                    }
+                    out.write('\n');
+                }
+                for (R row : rows) {
+                    for (int i = 0; i < fields.length; i++) {
+                        if (i > 0) {
+                            out.write(',');
+                        }
+                        Object value = fields[i].get(row);
+                        if (value != null) {
+                            writeValue(out, value instanceof Enum ? ((Enum<?>) value).name() : value.toString());
+                        }
+                    }
+                    out.write('\n');
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Reads the spilled rows back one at a time, in the order they were appended. Rows added
+     * since the last {@link #flush()} are not read.
+     */
+    public void read(Consumer<? super R> rows) {
+        if (!Files.exists(file)) {
+            return;
+        }
+        Constructor<R> constructor = constructor();
+        int[] parameterFields = requireNonNull(parameterFields(constructor));
+        try (Reader in = Files.newBufferedReader(file, UTF_8)) {
+            CsvReader csv = new CsvReader(in, fields.length);
+            @Nullable String[] header = csv.next();
+            if (header == null) {
+                return;
+            }
+            int[] columns = columns(header);
+            for (@Nullable String[] values = csv.next(); values != null; values = csv.next()) {
+                Object[] args = new Object[fields.length];
+                for (int i = 0; i < args.length; i++) {
+                    Field field = fields[parameterFields[i]];
+                    args[i] = convert(field.getType(), values[columns[parameterFields[i]]]);
+                }
+                rows.accept(constructor.newInstance(args));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (InstantiationException | IllegalAccessException | InvocationTargetException e) {
+            throw new IllegalStateException("Unable to construct " + rowType.getName() + " from " + file, e);
+        }
+    }
+
+    public List<R> readAll() {
+        List<R> rows = new ArrayList<>();
+        read(rows::add);
+        return rows;
+    }
+
+    /**
+     * @return For each field, the column of the file that holds it.
+     */
+    private int[] columns(@Nullable String[] header) {
+        int[] columns = new int[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            columns[i] = -1;
+            for (int column = 0; column < header.length; column++) {
+                if (fields[i].getName().equals(header[column])) {
+                    columns[i] = column;
+                    break;
+                }
+            }
+            if (columns[i] < 0) {
+                throw new IllegalStateException(file + " has no column for " + rowType.getName() + "." + fields[i].getName());
+            }
+        }
+        return columns;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Constructor<R> constructor() {
+        for (Constructor<?> constructor : rowType.getDeclaredConstructors()) {
+            if (parameterFields(constructor) != null) {
+                constructor.setAccessible(true);
+                return (Constructor<R>) constructor;
+            }
+        }
+        throw new IllegalStateException(rowType.getName() + " has no constructor taking every field");
+    }
+
+    /**
+     * @return For each parameter of the constructor, the field it sets, or {@code null} if the
+     * constructor doesn't take every field.
+     */
+    private int @Nullable [] parameterFields(Constructor<?> constructor) {
+        Parameter[] parameters = constructor.getParameters();
+        if (parameters.length != fields.length) {
+            return null;
+        }
+        int[] parameterFields = new int[parameters.length];
+        boolean[] taken = new boolean[fields.length];
+        for (int p = 0; p < parameters.length; p++) {
+            parameterFields[p] = -1;
+            for (int f = 0; f < fields.length; f++) {
+                if (!taken[f] && fields[f].getType() == parameters[p].getType() &&
+                    (!parameters[p].isNamePresent() || fields[f].getName().equals(parameters[p].getName()))) {
+                    parameterFields[p] = f;
+                    taken[f] = true;
+                    break;
+                }
+            }
+            if (parameterFields[p] < 0) {
+                return null;
+            }
+        }
+        return parameterFields;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static @Nullable Object convert(Class<?> type, @Nullable String value) {
+        if (value == null) {
+            if (type.isPrimitive()) {
+                throw new IllegalStateException("Missing value for a field of primitive type " + type.getName());
+            }
+            return null;
+        } else if (type == String.class) {
+            return value;
+        } else if (type == int.class || type == Integer.class) {
+            return Integer.parseInt(value);
+        } else if (type == long.class || type == Long.class) {
+            return Long.parseLong(value);
+        } else if (type == boolean.class || type == Boolean.class) {
+            return Boolean.parseBoolean(value);
+        } else if (type == double.class || type == Double.class) {
+            return Double.parseDouble(value);
+        } else if (type.isEnum()) {
+            return Enum.valueOf((Class<Enum>) type, value);
+        }
+        throw new IllegalStateException("Unsupported row field type " + type.getName());
+    }
+
+    private static void writeValue(Writer out, String value) throws IOException {
+        boolean quote = value.isEmpty();
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            out.write(value);
+            return;
+        }
+        out.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                out.write('"');
+            }
+            out.write(c);
+        }
+        out.write('"');
+    }
+
+    /**
+     * Reads records written by {@link #writeValue(Writer, String)}, where an unquoted empty field is {@code null}.
+     */
+    private static class CsvReader {
+        private final Reader in;
+        private final int width;
+        private final StringBuilder value = new StringBuilder();
+
+        CsvReader(Reader in, int width) {
+            this.in = in;
+            this.width = width;
+        }
+
+        @Nullable String @Nullable [] next() throws IOException {
+            int c = in.read();
+            if (c == -1) {
+                return null;
+            }
+            @Nullable String[] record = new String[width];
+            int field = 0;
+            while (true) {
+                value.setLength(0);
+                boolean quoted = c == '"';
+                if (quoted) {
+                    while ((c = in.read()) != -1) {
+                        if (c == '"') {
+                            c = in.read();
+                            if (c != '"') {
+                                break;
+                            }
+                        }
+                        value.append((char) c);
+                    }
+                } else {
+                    while (c != -1 && c != ',' && c != '\n') {
+                        value.append((char) c);
+                        c = in.read();
+                    }
+                }
+                if (field < width) {
+                    record[field++] = quoted || value.length() > 0 ? value.toString() : null;
+                }
+                if (c == ',') {
+                    c = in.read();
+                } else {
+                    return record;
+                }
+            }
+        }
+    }
+}
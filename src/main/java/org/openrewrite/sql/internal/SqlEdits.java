@@ -0,0 +1,111 @@
+/*
+ * Copyright 2024 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.sql.internal;
+
+import lombok.Value;
+import net.sf.jsqlparser.parser.ASTNodeAccess;
+import net.sf.jsqlparser.parser.SimpleNode;
+import net.sf.jsqlparser.parser.Token;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Replacements of spans of the original SQL text, located by the positions of the tokens that
+ * the parser kept for each AST node. Applying them copies the text once, so the cost depends on
+ * the number of edits rather than the size of the statement, and everything outside the edited
+ * spans keeps the author's formatting.
+ */
+public class SqlEdits {
+    private final String sql;
+    private final List<Edit> edits = new ArrayList<>(2);
+    private boolean located = true;
+
+    /**
+     * @param sql The text the statement was parsed from.
+     */
+    public SqlEdits(String sql) {
+        this.sql = sql;
+    }
+
+    /**
+     * Replaces the name at the start of a node, such as the name of a function.
+     *
+     * @return {@code false} if the node's position is unknown or the text there is not {@code name},
+     * in which case the edits can't be applied and {@link #isLocated()} is {@code false} from now on.
+     */
+    public boolean replaceName(ASTNodeAccess node, String name, String replacement) {
+        SimpleNode astNode = node.getASTNode();
+        Token first = astNode == null ? null : astNode.jjtGetFirstToken();
+        if (first == null || !sql.regionMatches(true, first.absoluteBegin, name, 0, name.length())) {
+            located = false;
+            return false;
+        }
+        return replace(first.absoluteBegin, first.absoluteBegin + name.length(), replacement);
+    }
+
+    /**
+     * @return {@code false} if the span overlaps a span that is already being replaced,
+     * in which case the edits can't be applied and {@link #isLocated()} is {@code false} from now on.
+     */
+    public boolean replace(int start, int end, String replacement) {
+        int i = edits.size();
+        while (i > 0 && edits.get(i - 1).getStart() > start) {
+            i--;
+        }
+        if ((i > 0 && edits.get(i - 1).getEnd() > start) || (i < edits.size() && edits.get(i).getStart() < end)) {
+            located = false;
+            return false;
+        }
+        edits.add(i, new Edit(start, end, replacement));
+        return true;
+    }
+
+    public boolean isEmpty() {
+        return edits.isEmpty();
+    }
+
+    /**
+     * @return {@code true} if every edit requested so far could be placed in the original text.
+     */
+    public boolean isLocated() {
+        return located;
+    }
+
+    public String apply() {
+        if (!located) {
+            throw new IllegalStateException("Some edits could not be located in the SQL text");
+        }
+        int length = sql.length();
+        for (Edit edit : edits) {
+            length += edit.getReplacement().length() - (edit.getEnd() - edit.getStart());
+        }
+        StringBuilder sb = new StringBuilder(length);
+        int copied = 0;
+        for (Edit edit : edits) {
+            sb.append(sql, copied, edit.getStart()).append(edit.getReplacement());
+            copied = edit.getEnd();
+        }
+        return sb.append(sql, copied, sql.length()).toString();
+    }
+
+    @Value
+    private static class Edit {
+        int start;
+        int end;
+        String replacement;
+    }
+}
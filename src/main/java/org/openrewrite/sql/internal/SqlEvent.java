@@ -0,0 +1,202 @@
+/*
+ * Copyright 2023 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.sql.internal;
+
+import org.jspecify.annotations.Nullable;
+
+import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static java.lang.invoke.MethodType.methodType;
+import static java.util.Collections.singletonList;
+
+/**
+ * Java Flight Recorder events for SQL work, so that slow files can be correlated with GC and thread
+ * activity. Each event carries the source path, the length of the SQL and an outcome, and its duration.
+ * {@link #DETECT_ROWS} also carries the number of rows found.
+ * <p>
+ * This library targets Java 8, where {@code jdk.jfr} may not exist, so the event types are defined at
+ * runtime through {@code jdk.jfr.EventFactory}, looked up reflectively. Where JFR is unavailable, or no
+ * recording has an event enabled, {@link #begin()} returns {@code null} without allocating.
+ */
+public enum SqlEvent {
+    PARSE("SqlParse", "SQL Parse", "Parsing SQL text that was not in the parse cache.", false),
+    DEPARSE("SqlDeparse", "SQL Deparse", "Printing a SQL statement after changing it.", false),
+    FORMAT("SqlFormat", "SQL Format", "Formatting the SQL in a text block.", false),
+    DETECT_ROWS("SqlDetectRows", "SQL Detect Rows", "Finding the columns used by the statements of a string.", true);
+
+    @Nullable
+    private final MethodHandle newEvent;
+
+    @Nullable
+    private final MethodHandle isEnabled;
+
+    SqlEvent(String name, String label, String description, boolean rows) {
+        MethodHandle newEvent = null;
+        MethodHandle isEnabled = null;
+        try {
+            if (Jfr.AVAILABLE) {
+                Object factory = Jfr.create("org.openrewrite.sql." + name, label, description, rows);
+                newEvent = Jfr.NEW_EVENT.bindTo(factory);
+                isEnabled = Jfr.IS_ENABLED.bindTo(Jfr.GET_EVENT_TYPE.invoke(factory));
+            }
+        } catch (Throwable ignored) {
+            // emit nothing rather than fail the recipe
+        }
+        this.newEvent = newEvent;
+        this.isEnabled = isEnabled;
+    }
+
+    /**
+     * @return A started event to commit when the work is done, or {@code null} if the event isn't being recorded.
+     */
+    public @Nullable Started begin() {
+        if (isEnabled == null || newEvent == null) {
+            return null;
+        }
+        try {
+            if (!(boolean) isEnabled.invoke()) {
+                return null;
+            }
+            Object event = newEvent.invoke();
+            Jfr.BEGIN.invoke(event);
+            return new Started(event);
+        } catch (Throwable t) {
+            return null;
+        }
+    }
+
+    public static class Started {
+        private final Object event;
+
+        private Started(Object event) {
+            this.event = event;
+        }
+
+        public void commit(@Nullable String sourcePath, int length, String outcome) {
+            try {
+                set(sourcePath, length, outcome);
+                Jfr.COMMIT.invoke(event);
+            } catch (Throwable ignored) {
+                // the event is lost, but the recipe goes on
+            }
+        }
+
+        /**
+         * Commits an event that counts rows, like {@link #DETECT_ROWS}.
+         */
+        public void commit(@Nullable String sourcePath, int length, String outcome, int rows) {
+            try {
+                set(sourcePath, length, outcome);
+                Jfr.SET.invoke(event, 3, rows);
+                Jfr.COMMIT.invoke(event);
+            } catch (Throwable ignored) {
+                // the event is lost, but the recipe goes on
+            }
+        }
+
+        private void set(@Nullable String sourcePath, int length, String outcome) throws Throwable {
+            Jfr.SET.invoke(event, 0, sourcePath);
+            Jfr.SET.invoke(event, 1, length);
+            Jfr.SET.invoke(event, 2, outcome);
+        }
+    }
+
+    /**
+     * Handles to the {@code jdk.jfr} API, initialized on first use. Not in the enum itself,
+     * because an enum's constants are constructed before its static fields are initialized.
+     */
+    private static class Jfr {
+        static final boolean AVAILABLE;
+        static final MethodHandle NEW_EVENT;
+        static final MethodHandle GET_EVENT_TYPE;
+        static final MethodHandle IS_ENABLED;
+        static final MethodHandle BEGIN;
+        static final MethodHandle SET;
+        static final MethodHandle COMMIT;
+
+        static {
+            MethodHandle newEvent = null;
+            MethodHandle getEventType = null;
+            MethodHandle isEnabled = null;
+            MethodHandle begin = null;
+            MethodHandle set = null;
+            MethodHandle commit = null;
+            boolean available = false;
+            try {
+                MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+                Class<?> event = Class.forName("jdk.jfr.Event");
+                Class<?> eventFactory = Class.forName("jdk.jfr.EventFactory");
+                Class<?> eventType = Class.forName("jdk.jfr.EventType");
+                newEvent = lookup.findVirtual(eventFactory, "newEvent", methodType(event));
+                getEventType = lookup.findVirtual(eventFactory, "getEventType", methodType(eventType));
+                isEnabled = lookup.findVirtual(eventType, "isEnabled", methodType(boolean.class));
+                begin = lookup.findVirtual(event, "begin", methodType(void.class));
+                set = lookup.findVirtual(event, "set", methodType(void.class, int.class, Object.class));
+                commit = lookup.findVirtual(event, "commit", methodType(void.class));
+                available = true;
+            } catch (ReflectiveOperationException | LinkageError ignored) {
+                // Java 8 without JFR, or a runtime that leaves out the jdk.jfr module
+            }
+            NEW_EVENT = newEvent;
+            GET_EVENT_TYPE = getEventType;
+            IS_ENABLED = isEnabled;
+            BEGIN = begin;
+            SET = set;
+            COMMIT = commit;
+            AVAILABLE = available;
+        }
+
+        /**
+         * @return A {@code jdk.jfr.EventFactory} for an event with a source path, statement length and outcome,
+         * followed by a number of rows when {@code rows} is set.
+         */
+        static Object create(String name, String label, String description, boolean rows) throws ReflectiveOperationException {
+            Constructor<?> annotation = Class.forName("jdk.jfr.AnnotationElement").getConstructor(Class.class, Object.class);
+            Constructor<?> field = Class.forName("jdk.jfr.ValueDescriptor").getConstructor(Class.class, String.class, List.class);
+            Class<? extends Annotation> nameType = annotationType("jdk.jfr.Name");
+            Class<? extends Annotation> labelType = annotationType("jdk.jfr.Label");
+
+            List<Object> annotations = Arrays.asList(
+                    annotation.newInstance(nameType, name),
+                    annotation.newInstance(labelType, label),
+                    annotation.newInstance(annotationType("jdk.jfr.Description"), description),
+                    annotation.newInstance(annotationType("jdk.jfr.Category"), new String[]{"OpenRewrite", "SQL"})
+            );
+            List<Object> fields = new ArrayList<>(Arrays.asList(
+                    field.newInstance(String.class, "sourcePath", singletonList(annotation.newInstance(labelType, "Source Path"))),
+                    field.newInstance(int.class, "length", singletonList(annotation.newInstance(labelType, "Length"))),
+                    field.newInstance(String.class, "outcome", singletonList(annotation.newInstance(labelType, "Outcome")))
+            ));
+            if (rows) {
+                fields.add(field.newInstance(int.class, "rows", singletonList(annotation.newInstance(labelType, "Rows"))));
+            }
+            return Class.forName("jdk.jfr.EventFactory")
+                    .getMethod("create", List.class, List.class)
+                    .invoke(null, annotations, fields);
+        }
+
+        @SuppressWarnings("unchecked")
+        private static Class<? extends Annotation> annotationType(String name) throws ClassNotFoundException {
+            return (Class<? extends Annotation>) Class.forName(name);
+        }
+    }
+}
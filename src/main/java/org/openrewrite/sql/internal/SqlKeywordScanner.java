@@ -0,0 +1,195 @@
+/*
+ * Copyright 2024 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.sql.internal;
+
+import org.jspecify.annotations.Nullable;
+
+/**
+ * A cheap pre-filter deciding whether a string is worth handing to the SQL parser.
+ * <p>
+ * Keywords only count as whole words. A string that begins with a statement keyword
+ * is accepted outright. Elsewhere in the string, a keyword must be followed by the keyword
+ * that completes its statement (SELECT ... FROM, UPDATE ... SET, DELETE ... FROM,
+ * INSERT ... INTO/VALUES, CREATE/ALTER/DROP/TRUNCATE followed by an object type), so that prose
+ * like "Failed to update user" is rejected without a failing parse. The scan is a single
+ * allocation-free pass over the characters.
+ */
+public class SqlKeywordScanner {
+    private static final int NONE = -1;
+    private static final int SELECT = 0;
+    private static final int UPDATE = 1;
+    private static final int DELETE = 2;
+    private static final int INSERT = 3;
+    private static final int FROM = 4;
+    private static final int SET = 5;
+    private static final int INTO = 6;
+    private static final int VALUES = 7;
+    private static final int CREATE = 8;
+    private static final int ALTER = 9;
+    private static final int DROP = 10;
+    private static final int TRUNCATE = 11;
+
+    private static final String[] KEYWORDS = {
+            "SELECT", "UPDATE", "DELETE", "INSERT",
+            "FROM", "SET", "INTO", "VALUES",
+            "CREATE", "ALTER", "DROP", "TRUNCATE"
+    };
+
+    private static final String[] DDL_OBJECTS = {
+            "TABLE", "INDEX", "VIEW", "SEQUENCE", "FUNCTION", "PROCEDURE", "TRIGGER",
+            "SCHEMA", "DATABASE", "TYPE", "UNIQUE", "OR", "COLUMN", "CONSTRAINT"
+    };
+
+    private SqlKeywordScanner() {
+    }
+
+    /**
+     * @return {@code true} if the text probably contains a SELECT, UPDATE, DELETE or INSERT statement.
+     */
+    public static boolean probablySql(@Nullable CharSequence maybeSql) {
+        return maybeSql != null && scan(maybeSql, false);
+    }
+
+    /**
+     * @return {@code true} if the text probably contains a DML statement or a CREATE, ALTER, DROP
+     * or TRUNCATE statement.
+     */
+    public static boolean probablySqlOrDdl(@Nullable CharSequence maybeSql) {
+        return maybeSql != null && scan(maybeSql, true);
+    }
+
+    private static boolean scan(CharSequence s, boolean ddl) {
+        boolean firstWord = true;
+        boolean select = false;
+        boolean update = false;
+        boolean delete = false;
+        boolean insert = false;
+        boolean afterDdlVerb = false;
+
+        int length = s.length();
+        int i = 0;
+        while (i < length) {
+            char c = s.charAt(i);
+            if (!isWordPart(c)) {
+                if (c == '-' && i + 1 < length && s.charAt(i + 1) == '-') {
+                    while (i < length && s.charAt(i) != '\n') {
+                        i++;
+                    }
+                } else if (c == '/' && i + 1 < length && s.charAt(i + 1) == '*') {
+                    i += 2;
+                    while (i + 1 < length && !(s.charAt(i) == '*' && s.charAt(i + 1) == '/')) {
+                        i++;
+                    }
+                    i += 2;
+                } else {
+                    i++;
+                }
+                continue;
+            }
+
+            int start = i;
+            while (i < length && isWordPart(s.charAt(i))) {
+                i++;
+            }
+
+            if (afterDdlVerb && matchesAny(s, start, i, DDL_OBJECTS)) {
+                return true;
+            }
+            afterDdlVerb = false;
+
+            int keyword = keyword(s, start, i);
+            switch (keyword) {
+                case SELECT:
+                case UPDATE:
+                case DELETE:
+                case INSERT:
+                    if (firstWord) {
+                        return true;
+                    }
+                    select |= keyword == SELECT;
+                    update |= keyword == UPDATE;
+                    delete |= keyword == DELETE;
+                    insert |= keyword == INSERT;
+                    break;
+                case FROM:
+                    if (select || delete) {
+                        return true;
+                    }
+                    break;
+                case SET:
+                    if (update) {
+                        return true;
+                    }
+                    break;
+                case INTO:
+                case VALUES:
+                    if (insert) {
+                        return true;
+                    }
+                    break;
+                case CREATE:
+                case ALTER:
+                case DROP:
+                case TRUNCATE:
+                    if (ddl) {
+                        if (firstWord) {
+                            return true;
+                        }
+                        afterDdlVerb = true;
+                    }
+                    break;
+                default:
+                    break;
+            }
+            firstWord = false;
+        }
+        return false;
+    }
+
+    private static int keyword(CharSequence s, int start, int end) {
+        for (int k = 0; k < KEYWORDS.length; k++) {
+            if (matches(s, start, end, KEYWORDS[k])) {
+                return k;
+            }
+        }
+        return NONE;
+    }
+
+    private static boolean matchesAny(CharSequence s, int start, int end, String[] words) {
+        for (String word : words) {
+            if (matches(s, start, end, word)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean matches(CharSequence s, int start, int end, String upperCaseWord) {
+        if (end - start != upperCaseWord.length()) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            if (Character.toUpperCase(s.charAt(i)) != upperCaseWord.charAt(i - start)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isWordPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$';
+    }
+}
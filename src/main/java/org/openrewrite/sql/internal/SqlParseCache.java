@@ -0,0 +1,168 @@
+/*
+ * Copyright 2024 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.sql.internal;
+
+import lombok.Getter;
+import net.sf.jsqlparser.JSQLParserException;
+import net.sf.jsqlparser.statement.Statement;
+import org.jspecify.annotations.Nullable;
+import org.openrewrite.ExecutionContext;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A size-bounded cache of parsed SQL statements keyed by their text, shared by every
+ * SQL recipe that runs with the same {@link ExecutionContext}. Strings that fail to parse
+ * are cached as well, so that a repeated non-SQL string only pays for one failed parse.
+ * Beyond the bounded LRU, their fingerprints are remembered in a compact {@link NonSqlFilter},
+ * which can be seeded from a previous run by putting a cache constructed with a loaded filter
+ * in the execution context before the recipes run.
+ * <p>
+ * Cached statements are shared between recipes and must be treated as read-only.
+ */
+public class SqlParseCache {
+    private static final int DEFAULT_MAXIMUM_SIZE = 10_000;
+    private static final int DEFAULT_NON_SQL_CAPACITY = 1 << 18;
+    private static final int SEGMENTS = 16;
+
+    private static final Object UNPARSEABLE = new Object();
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder nonSqlHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    @Getter
+    private final NonSqlFilter nonSqlFilter;
+
+    public SqlParseCache() {
+        this(DEFAULT_MAXIMUM_SIZE);
+    }
+
+    public SqlParseCache(int maximumSize) {
+        this(maximumSize, new NonSqlFilter(DEFAULT_NON_SQL_CAPACITY));
+    }
+
+    public SqlParseCache(int maximumSize, NonSqlFilter nonSqlFilter) {
+        this.nonSqlFilter = nonSqlFilter;
+        int segmentSize = Math.max(1, maximumSize / SEGMENTS);
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(segmentSize);
+        }
+    }
+
+    public static SqlParseCache get(ExecutionContext ctx) {
+        return ctx.computeMessageIfAbsent(SqlParseCache.class.getName(), k -> new SqlParseCache());
+    }
+
+    /**
+     * @param sql The SQL text.
+     * @return The parsed statement, or {@code null} if the text is not a valid SQL statement.
+     */
+    public @Nullable Statement parse(String sql) {
+        return parse(sql, null);
+    }
+
+    /**
+     * @param statistics Where to count cache hits and record parse times, if anywhere.
+     * @return The parsed statement, or {@code null} if the text is not a valid SQL statement.
+     */
+    public @Nullable Statement parse(String sql, SqlStatistics.@Nullable Counters statistics) {
+        Segment segment = segments[(sql.hashCode() & Integer.MAX_VALUE) % SEGMENTS];
+        Object cached;
+        synchronized (segment) {
+            cached = segment.get(sql);
+        }
+        if (cached != null) {
+            hits.increment();
+            if (statistics != null) {
+                statistics.cacheHit();
+            }
+            return cached == UNPARSEABLE ? null : (Statement) cached;
+        }
+        if (nonSqlFilter.mightContain(sql)) {
+            nonSqlHits.increment();
+            if (statistics != null) {
+                statistics.cacheHit();
+            }
+            return null;
+        }
+
+        misses.increment();
+        Statement statement;
+        SqlEvent.@Nullable Started event = SqlEvent.PARSE.begin();
+        long start = statistics == null ? 0 : System.nanoTime();
+        try {
+            statement = SqlParser.parse(sql);
+        } catch (JSQLParserException e) {
+            nonSqlFilter.add(sql);
+            statement = null;
+        }
+        if (statistics != null) {
+            statistics.parsed(sql, System.nanoTime() - start, statement != null);
+        }
+        if (event != null) {
+            event.commit(statistics == null ? null : statistics.getSourcePath(), sql.length(),
+                    statement == null ? "unparseable" : "parsed");
+        }
+        synchronized (segment) {
+            segment.put(sql, statement == null ? UNPARSEABLE : statement);
+        }
+        return statement;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return The number of lookups answered by the {@link NonSqlFilter} after the
+     * unparseable verdict was evicted from the cache (or was learned in an earlier run).
+     */
+    public long getNonSqlHits() {
+        return nonSqlHits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    private static class Segment extends LinkedHashMap<String, Object> {
+        private final int maximumSize;
+
+        Segment(int maximumSize) {
+            super(16, 0.75f, true);
+            this.maximumSize = maximumSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Object> eldest) {
+            return size() > maximumSize;
+        }
+    }
+}
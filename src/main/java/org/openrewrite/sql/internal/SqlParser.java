@@ -0,0 +1,93 @@
+/*
+ * Copyright 2024 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.sql.internal;
+
+import net.sf.jsqlparser.JSQLParserException;
+import net.sf.jsqlparser.parser.CCJSqlParser;
+import net.sf.jsqlparser.parser.CCJSqlParserUtil;
+import net.sf.jsqlparser.statement.Statement;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parses SQL on the calling thread. {@link CCJSqlParserUtil#parse(String)} enforces its timeout
+ * by submitting every parse to a newly created single thread executor, which dominates the cost
+ * of parsing short strings. Here the timeout is cooperative instead: one shared daemon thread
+ * flags parsers that run too long, and jsqlparser checks that flag as it parses.
+ */
+public class SqlParser {
+    private static final long TIMEOUT_MILLIS = 6_000;
+
+    /**
+     * Above this depth of nested parentheses, complex parsing can take exponential time,
+     * so statements that fail simple parsing are not retried. Same limit as jsqlparser.
+     */
+    private static final int ALLOWED_NESTING_DEPTH = 10;
+
+    private static final ScheduledThreadPoolExecutor TIMEOUTS = new ScheduledThreadPoolExecutor(1, r -> {
+        Thread thread = new Thread(r, "rewrite-sql-parser-timeout");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    static {
+        TIMEOUTS.setRemoveOnCancelPolicy(true);
+    }
+
+    private SqlParser() {
+    }
+
+    public static Statement parse(String sql) throws JSQLParserException {
+        try {
+            return parse(sql, false);
+        } catch (JSQLParserException e) {
+            if (nestingDepth(sql) <= ALLOWED_NESTING_DEPTH) {
+                return parse(sql, true);
+            }
+            throw e;
+        }
+    }
+
+    private static Statement parse(String sql, boolean allowComplexParsing) throws JSQLParserException {
+        CCJSqlParser parser = CCJSqlParserUtil.newParser(sql).withAllowComplexParsing(allowComplexParsing);
+        ScheduledFuture<?> timeout = TIMEOUTS.schedule(() -> {
+            parser.interrupted = true;
+        }, TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        try {
+            return parser.Statement();
+        } catch (Exception | StackOverflowError e) {
+            throw new JSQLParserException(e);
+        } finally {
+            timeout.cancel(false);
+        }
+    }
+
+    private static int nestingDepth(String sql) {
+        int depth = 0;
+        int maxDepth = 0;
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (c == '(') {
+                maxDepth = Math.max(maxDepth, ++depth);
+            } else if (c == ')') {
+                depth--;
+            }
+        }
+        return maxDepth;
+    }
+}
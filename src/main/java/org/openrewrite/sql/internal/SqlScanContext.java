@@ -0,0 +1,50 @@
+/*
+ * Copyright 2024 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.sql.internal;
+
+import lombok.Value;
+import org.jspecify.annotations.Nullable;
+import org.openrewrite.SourceFile;
+import org.openrewrite.marker.GitProvenance;
+
+import static org.openrewrite.PathUtils.separatorsToUnix;
+
+/**
+ * What SQL recipes record about the source file a statement was found in, computed once
+ * when the source file is entered rather than for every statement or data table row.
+ */
+@Value
+public class SqlScanContext {
+    SourceFile sourceFile;
+
+    /**
+     * The source path, with unix separators.
+     */
+    String sourcePath;
+
+    @Nullable
+    String commitHash;
+
+    public static SqlScanContext of(SourceFile sourceFile) {
+        return of(sourceFile, sourceFile.getMarkers().findFirst(GitProvenance.class)
+                .map(GitProvenance::getChange)
+                .orElse(null));
+    }
+
+    public static SqlScanContext of(SourceFile sourceFile, @Nullable String commitHash) {
+        return new SqlScanContext(sourceFile, separatorsToUnix(sourceFile.getSourcePath().toString()), commitHash);
+    }
+}
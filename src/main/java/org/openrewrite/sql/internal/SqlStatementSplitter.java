@@ -0,0 +1,372 @@
+/*
+ * Copyright 2024 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.sql.internal;
+
+import lombok.Value;
+import org.jspecify.annotations.Nullable;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Lazily splits a SQL script into statements at semicolons, in a single linear pass.
+ * Semicolons inside quoted strings and identifiers, dollar-quoted bodies, comments and
+ * procedural blocks do not end a statement. Fragments that hold nothing but whitespace and
+ * comments are skipped.
+ * <p>
+ * Procedural blocks are the {@code BEGIN ... END} bodies of {@code CREATE FUNCTION}, {@code PROCEDURE}
+ * and {@code TRIGGER} statements and of anonymous {@code DECLARE ... BEGIN ... END} blocks, together with
+ * the blocks and {@code CASE ... END} nested in them. Elsewhere {@code BEGIN} starts a transaction and a
+ * {@code CASE} expression holds no semicolons, so both may also be the names of columns.
+ * <p>
+ * Within single-quoted strings, a quote is escaped by doubling it, as in standard SQL. MySQL also
+ * lets a backslash escape the next character, but elsewhere {@code 'C:\'} is a complete string,
+ * so backslash escapes are only honored when asked for.
+ */
+public class SqlStatementSplitter implements Iterable<SqlStatementSplitter.Fragment> {
+    private final String script;
+    private final boolean backslashEscapes;
+
+    public SqlStatementSplitter(String script) {
+        this(script, false);
+    }
+
+    /**
+     * @param backslashEscapes Whether a backslash escapes the next character of a single-quoted string, as in MySQL.
+     */
+    public SqlStatementSplitter(String script, boolean backslashEscapes) {
+        this.script = script;
+        this.backslashEscapes = backslashEscapes;
+    }
+
+    @Override
+    public Iterator<Fragment> iterator() {
+        return new FragmentIterator(script, backslashEscapes);
+    }
+
+    @Value
+    public static class Fragment {
+        /**
+         * The statement text, without its terminating semicolon or surrounding whitespace and comments.
+         */
+        String text;
+
+        /**
+         * The offset of the first character of {@link #text} in the script.
+         */
+        int offset;
+
+        /**
+         * The one-based line of the script that {@link #text} starts on.
+         */
+        int line;
+    }
+
+    private static class FragmentIterator implements Iterator<Fragment> {
+        private final String s;
+        private final boolean backslashEscapes;
+        private int pos;
+        private int line = 1;
+
+        // what is known about the statement being scanned, reset at its start
+        private boolean firstWord;
+        private boolean create;
+        private boolean routine;
+
+        /**
+         * Whether the scanner is in a routine's signature, which ends at the {@code AS} or {@code IS}
+         * that introduces its body.
+         */
+        private boolean signature;
+
+        private int parenDepth;
+
+        /**
+         * Set by {@code DECLARE}, or by {@code IS} in a routine, until the {@code BEGIN} that follows
+         * the declarations, which end in semicolons of their own.
+         */
+        private boolean declaring;
+
+        @Nullable
+        private Fragment next;
+
+        FragmentIterator(String s, boolean backslashEscapes) {
+            this.s = s;
+            this.backslashEscapes = backslashEscapes;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null) {
+                next = scan();
+            }
+            return next != null;
+        }
+
+        @Override
+        public Fragment next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Fragment f = next;
+            next = null;
+            return f;
+        }
+
+        private @Nullable Fragment scan() {
+            int length = s.length();
+            while (pos < length) {
+                int start = -1;
+                int startLine = line;
+                int end = -1;
+                int blockDepth = 0;
+                firstWord = true;
+                create = false;
+                routine = false;
+                signature = false;
+                declaring = false;
+                parenDepth = 0;
+                while (pos < length) {
+                    char c = s.charAt(pos);
+                    if (c == '\n') {
+                        line++;
+                        pos++;
+                    } else if (Character.isWhitespace(c)) {
+                        pos++;
+                    } else if (c == '-' && peek(1) == '-') {
+                        skipLineComment();
+                    } else if (c == '/' && peek(1) == '*') {
+                        skipBlockComment();
+                    } else if (c == ';' && blockDepth == 0 && !declaring) {
+                        pos++;
+                        break;
+                    } else {
+                        if (start < 0) {
+                            start = pos;
+                            startLine = line;
+                        }
+                        if (c == '\'' || c == '"' || c == '`') {
+                            skipQuoted(c, c);
+                        } else if (c == '[') {
+                            skipQuoted('[', ']');
+                        } else if (c == '$' && isDollarQuoteStart()) {
+                            skipDollarQuoted();
+                        } else if (isWordStart(c)) {
+                            blockDepth = word(blockDepth);
+                        } else {
+                            if (c == '(') {
+                                parenDepth++;
+                            } else if (c == ')') {
+                                parenDepth--;
+                            }
+                            pos++;
+                        }
+                        end = pos;
+                    }
+                }
+                if (start >= 0) {
+                    return new Fragment(s.substring(start, end), start, startLine);
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Consumes one word, tracking how deeply nested in procedural blocks the scanner is.
+         * {@code END IF}, {@code END LOOP} and the like close constructs that were never counted,
+         * {@code END CASE} closes a procedural {@code CASE} without its {@code CASE} opening another,
+         * and {@code BEGIN TRANSACTION}, {@code BEGIN ISOLATION LEVEL ...} and {@code BEGIN READ ONLY}
+         * are statements rather than blocks.
+         */
+        private int word(int blockDepth) {
+            int start = pos;
+            while (pos < s.length() && isWordPart(s.charAt(pos))) {
+                pos++;
+            }
+            boolean first = firstWord;
+            firstWord = false;
+            if (blockDepth == 0 && parenDepth == 0) {
+                if (first && is(start, "CREATE")) {
+                    create = true;
+                } else if ((first || routine) && is(start, "DECLARE")) {
+                    // T-SQL declares variables, named with @, in a statement of their own
+                    declaring = peekNonWhitespace() != '@';
+                } else if (declaring && is(start, "CURSOR")) {
+                    // a PostgreSQL DECLARE c CURSOR FOR ... statement rather than a block
+                    int nextWord = nextWordStart();
+                    declaring = nextWord < 0 || !(is(nextWord, "FOR") || is(nextWord, "WITH") || is(nextWord, "WITHOUT"));
+                } else if (create && !routine && (is(start, "FUNCTION") || is(start, "PROCEDURE") || is(start, "TRIGGER"))) {
+                    routine = true;
+                    signature = true;
+                } else if (signature && (is(start, "AS") || is(start, "IS"))) {
+                    signature = false;
+                    // an Oracle routine's declarations, as in CREATE PROCEDURE p IS x NUMBER; BEGIN ...
+                    declaring = is(start, "IS");
+                }
+            }
+
+            if (is(start, "BEGIN")) {
+                int nextWord = nextWordStart();
+                if ((blockDepth > 0 || routine || declaring) && !isIdentifier() &&
+                    (nextWord < 0 || !(is(nextWord, "TRANSACTION") || is(nextWord, "TRAN") || is(nextWord, "WORK") ||
+                                       is(nextWord, "ISOLATION") || is(nextWord, "READ")))) {
+                    declaring = false;
+                    return blockDepth + 1;
+                }
+            } else if (is(start, "CASE")) {
+                if (blockDepth > 0 && !isIdentifier()) {
+                    return blockDepth + 1;
+                }
+            } else if (is(start, "END") && blockDepth > 0) {
+                int nextWord = nextWordStart();
+                if (nextWord >= 0 && is(nextWord, "CASE")) {
+                    pos = nextWord + "CASE".length();
+                    return blockDepth - 1;
+                } else if (nextWord < 0 || !(is(nextWord, "IF") || is(nextWord, "LOOP") || is(nextWord, "WHILE") ||
+                                             is(nextWord, "REPEAT") || is(nextWord, "FOR"))) {
+                    return blockDepth - 1;
+                }
+            }
+            return blockDepth;
+        }
+
+        /**
+         * @return Whether the word just consumed is used as a name, because what follows it could
+         * only follow a name, as in {@code SELECT begin FROM t} or {@code ORDER BY case, id;}.
+         */
+        private boolean isIdentifier() {
+            char next = peekNonWhitespace();
+            if (next == ';' || next == ',' || next == ')' || next == '.' || next == '=') {
+                return true;
+            }
+            int nextWord = nextWordStart();
+            return nextWord >= 0 && (is(nextWord, "FROM") || is(nextWord, "AS"));
+        }
+
+        private boolean is(int start, String upperCaseWord) {
+            int end = start + upperCaseWord.length();
+            if (end > s.length() || (end < s.length() && isWordPart(s.charAt(end)))) {
+                return false;
+            }
+            for (int i = 0; i < upperCaseWord.length(); i++) {
+                if (Character.toUpperCase(s.charAt(start + i)) != upperCaseWord.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * @return The start of the word that follows the current position on the same statement,
+         * or -1 if the next non-whitespace character does not start a word. Does not move the scanner.
+         */
+        private int nextWordStart() {
+            int i = pos;
+            while (i < s.length() && Character.isWhitespace(s.charAt(i))) {
+                i++;
+            }
+            return i < s.length() && isWordStart(s.charAt(i)) ? i : -1;
+        }
+
+        private char peekNonWhitespace() {
+            int i = pos;
+            while (i < s.length() && Character.isWhitespace(s.charAt(i))) {
+                i++;
+            }
+            return i < s.length() ? s.charAt(i) : ';';
+        }
+
+        private char peek(int ahead) {
+            return pos + ahead < s.length() ? s.charAt(pos + ahead) : '\0';
+        }
+
+        private void skipLineComment() {
+            while (pos < s.length() && s.charAt(pos) != '\n') {
+                pos++;
+            }
+        }
+
+        private void skipBlockComment() {
+            pos += 2;
+            while (pos < s.length() && !(s.charAt(pos) == '*' && peek(1) == '/')) {
+                if (s.charAt(pos) == '\n') {
+                    line++;
+                }
+                pos++;
+            }
+            pos = Math.min(s.length(), pos + 2);
+        }
+
+        /**
+         * Skips a quoted string or identifier, where a doubled closing quote is an escaped quote.
+         */
+        private void skipQuoted(char open, char close) {
+            pos++;
+            while (pos < s.length()) {
+                char c = s.charAt(pos++);
+                if (c == '\n') {
+                    line++;
+                } else if (c == '\\' && open == '\'' && backslashEscapes && pos < s.length()) {
+                    if (s.charAt(pos) == '\n') {
+                        line++;
+                    }
+                    pos++;
+                } else if (c == close) {
+                    if (pos < s.length() && s.charAt(pos) == close && open == close) {
+                        pos++;
+                    } else {
+                        return;
+                    }
+                }
+            }
+        }
+
+        private boolean isDollarQuoteStart() {
+            if (pos > 0 && isWordPart(s.charAt(pos - 1))) {
+                return false;
+            }
+            int i = pos + 1;
+            while (i < s.length() && isWordPart(s.charAt(i)) && s.charAt(i) != '$') {
+                i++;
+            }
+            return i < s.length() && s.charAt(i) == '$' && (i == pos + 1 || !Character.isDigit(s.charAt(pos + 1)));
+        }
+
+        /**
+         * Skips a PostgreSQL dollar-quoted body such as {@code $$ ... $$} or {@code $fn$ ... $fn$}.
+         */
+        private void skipDollarQuoted() {
+            int tagEnd = s.indexOf('$', pos + 1) + 1;
+            String tag = s.substring(pos, tagEnd);
+            int close = s.indexOf(tag, tagEnd);
+            int end = close < 0 ? s.length() : close + tag.length();
+            for (int i = pos; i < end; i++) {
+                if (s.charAt(i) == '\n') {
+                    line++;
+                }
+            }
+            pos = end;
+        }
+
+        private static boolean isWordStart(char c) {
+            return Character.isLetter(c) || c == '_';
+        }
+
+        private static boolean isWordPart(char c) {
+            return Character.isLetterOrDigit(c) || c == '_' || c == '$';
+        }
+    }
+}
@@ -0,0 +1,276 @@
+/*
+ * Copyright 2024 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.sql.internal;
+
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.expression.ExpressionVisitorAdapter;
+import net.sf.jsqlparser.schema.Column;
+import net.sf.jsqlparser.statement.StatementVisitorAdapter;
+import net.sf.jsqlparser.statement.create.table.CreateTable;
+import net.sf.jsqlparser.statement.create.view.CreateView;
+import net.sf.jsqlparser.statement.delete.Delete;
+import net.sf.jsqlparser.statement.insert.Insert;
+import net.sf.jsqlparser.statement.merge.Merge;
+import net.sf.jsqlparser.statement.merge.MergeInsert;
+import net.sf.jsqlparser.statement.merge.MergeUpdate;
+import net.sf.jsqlparser.statement.select.*;
+import net.sf.jsqlparser.statement.update.Update;
+import net.sf.jsqlparser.statement.update.UpdateSet;
+import net.sf.jsqlparser.statement.upsert.Upsert;
+import org.jspecify.annotations.Nullable;
+
+import java.util.List;
+
+/**
+ * Hands every expression of a SELECT, UPDATE, DELETE, INSERT, UPSERT or MERGE statement, or of the
+ * query of a {@code CREATE VIEW ... AS} or {@code CREATE TABLE ... AS}, to an {@link ExpressionVisitorAdapter},
+ * including the expressions of subqueries, derived tables and common table expressions, without
+ * printing the statement. The adapter descends into the
+ * operands of each expression, so a visitor that overrides a method for a compound expression
+ * such as a function calls {@code super} to see its operands.
+ * <p>
+ * The walk neither modifies the statement nor allocates per node.
+ */
+public class SqlStatementWalker extends StatementVisitorAdapter {
+    private final ExpressionVisitorAdapter expressions;
+
+    private final SelectVisitorAdapter selects = new SelectVisitorAdapter() {
+        @Override
+        public void visit(PlainSelect plainSelect) {
+            withItems(plainSelect.getWithItemsList());
+            if (plainSelect.getDistinct() != null) {
+                selectItems(plainSelect.getDistinct().getOnSelectItems());
+            }
+            selectItems(plainSelect.getSelectItems());
+            from(plainSelect.getFromItem());
+            joins(plainSelect.getJoins());
+            expression(plainSelect.getWhere());
+            expression(plainSelect.getOracleHierarchical());
+            if (plainSelect.getGroupBy() != null) {
+                expression(plainSelect.getGroupBy().getGroupByExpressionList());
+            }
+            expression(plainSelect.getHaving());
+            expression(plainSelect.getQualify());
+            if (plainSelect.getWindowDefinitions() != null) {
+                for (WindowDefinition window : plainSelect.getWindowDefinitions()) {
+                    expression(window.getPartitionExpressionList());
+                    orderBy(window.getOrderByElements());
+                }
+            }
+            orderBy(plainSelect.getOrderByElements());
+            limit(plainSelect.getLimit());
+            if (plainSelect.getOffset() != null) {
+                expression(plainSelect.getOffset().getOffset());
+            }
+            if (plainSelect.getFetch() != null) {
+                expression(plainSelect.getFetch().getExpression());
+            }
+        }
+
+        @Override
+        public void visit(SetOperationList setOperationList) {
+            withItems(setOperationList.getWithItemsList());
+            for (Select select : setOperationList.getSelects()) {
+                select.accept(this);
+            }
+            orderBy(setOperationList.getOrderByElements());
+        }
+
+        @Override
+        public void visit(ParenthesedSelect parenthesedSelect) {
+            withItems(parenthesedSelect.getWithItemsList());
+            parenthesedSelect.getSelect().accept(this);
+        }
+
+        @Override
+        public void visit(LateralSubSelect lateralSubSelect) {
+            visit((ParenthesedSelect) lateralSubSelect);
+        }
+
+        @Override
+        public void visit(Values values) {
+            expression(values.getExpressions());
+        }
+    };
+
+    /**
+     * @param expressions Receives each expression. The walker takes ownership of the adapter, replacing
+     *                    its select visitor so that it descends into subqueries, so an adapter should
+     *                    not be shared with another walker or used on its own afterwards.
+     */
+    public SqlStatementWalker(ExpressionVisitorAdapter expressions) {
+        this.expressions = expressions;
+        expressions.setSelectVisitor(selects);
+    }
+
+    @Override
+    public void visit(Select select) {
+        select.accept(selects);
+    }
+
+    @Override
+    public void visit(Update update) {
+        withItems(update.getWithItemsList());
+        joins(update.getStartJoins());
+        from(update.getFromItem());
+        joins(update.getJoins());
+        updateSets(update.getUpdateSets());
+        expression(update.getWhere());
+        orderBy(update.getOrderByElements());
+        limit(update.getLimit());
+        selectItems(update.getReturningExpressionList());
+    }
+
+    @Override
+    public void visit(Delete delete) {
+        withItems(delete.getWithItemsList());
+        joins(delete.getJoins());
+        expression(delete.getWhere());
+        orderBy(delete.getOrderByElements());
+        limit(delete.getLimit());
+        selectItems(delete.getReturningExpressionList());
+    }
+
+    @Override
+    public void visit(Insert insert) {
+        withItems(insert.getWithItemsList());
+        expression(insert.getColumns());
+        if (insert.getSelect() != null) {
+            insert.getSelect().accept(selects);
+        }
+        updateSets(insert.getSetUpdateSets());
+        updateSets(insert.getDuplicateUpdateSets());
+        selectItems(insert.getReturningExpressionList());
+    }
+
+    @Override
+    public void visit(Upsert upsert) {
+        expression(upsert.getColumns());
+        if (upsert.getSelect() != null) {
+            upsert.getSelect().accept(selects);
+        }
+        updateSets(upsert.getUpdateSets());
+        updateSets(upsert.getDuplicateUpdateSets());
+    }
+
+    @Override
+    public void visit(CreateView createView) {
+        if (createView.getSelect() != null) {
+            createView.getSelect().accept(selects);
+        }
+    }
+
+    @Override
+    public void visit(CreateTable createTable) {
+        if (createTable.getSelect() != null) {
+            createTable.getSelect().accept(selects);
+        }
+    }
+
+    @Override
+    public void visit(Merge merge) {
+        withItems(merge.getWithItemsList());
+        from(merge.getFromItem());
+        expression(merge.getOnCondition());
+        MergeUpdate update = merge.getMergeUpdate();
+        if (update != null) {
+            updateSets(update.getUpdateSets());
+            expression(update.getWhereCondition());
+            expression(update.getDeleteWhereCondition());
+        }
+        MergeInsert insert = merge.getMergeInsert();
+        if (insert != null) {
+            expression(insert.getColumns());
+            expression(insert.getValues());
+            expression(insert.getWhereCondition());
+        }
+    }
+
+    private void withItems(@Nullable List<WithItem> withItems) {
+        if (withItems != null) {
+            for (WithItem withItem : withItems) {
+                withItem.getSelect().accept(selects);
+            }
+        }
+    }
+
+    private void from(@Nullable FromItem fromItem) {
+        if (fromItem instanceof ParenthesedSelect) {
+            ((ParenthesedSelect) fromItem).accept(selects);
+        } else if (fromItem instanceof ParenthesedFromItem) {
+            from(((ParenthesedFromItem) fromItem).getFromItem());
+            joins(((ParenthesedFromItem) fromItem).getJoins());
+        } else if (fromItem instanceof TableFunction) {
+            ((TableFunction) fromItem).getFunction().accept(expressions);
+        }
+    }
+
+    private void joins(@Nullable List<Join> joins) {
+        if (joins != null) {
+            for (Join join : joins) {
+                from(join.getRightItem());
+                for (Expression on : join.getOnExpressions()) {
+                    on.accept(expressions);
+                }
+                if (join.getUsingColumns() != null) {
+                    for (Column column : join.getUsingColumns()) {
+                        column.accept(expressions);
+                    }
+                }
+            }
+        }
+    }
+
+    private void selectItems(@Nullable List<SelectItem<?>> selectItems) {
+        if (selectItems != null) {
+            for (SelectItem<?> selectItem : selectItems) {
+                expression(selectItem.getExpression());
+            }
+        }
+    }
+
+    private void limit(@Nullable Limit limit) {
+        if (limit != null) {
+            expression(limit.getOffset());
+            expression(limit.getRowCount());
+        }
+    }
+
+    private void updateSets(@Nullable List<UpdateSet> updateSets) {
+        if (updateSets != null) {
+            for (UpdateSet set : updateSets) {
+                for (Column column : set.getColumns()) {
+                    column.accept(expressions);
+                }
+                expression(set.getValues());
+            }
+        }
+    }
+
+    private void orderBy(@Nullable List<OrderByElement> orderByElements) {
+        if (orderByElements != null) {
+            for (OrderByElement orderByElement : orderByElements) {
+                expression(orderByElement.getExpression());
+            }
+        }
+    }
+
+    private void expression(@Nullable Expression expression) {
+        if (expression != null) {
+            expression.accept(expressions);
+        }
+    }
+}
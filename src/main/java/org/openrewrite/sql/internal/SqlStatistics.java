@@ -0,0 +1,271 @@
+/*
+ * Copyright 2023 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.sql.internal;
+
+import lombok.Value;
+import org.jspecify.annotations.Nullable;
+import org.openrewrite.ExecutionContext;
+import org.openrewrite.sql.table.SqlProcessingStatistics;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static java.util.Comparator.comparingLong;
+
+/**
+ * Counts the strings that SQL recipes examine and the statements they parse, for the
+ * {@link SqlProcessingStatistics} data table. Each thread records into counters of its own
+ * without synchronization, so that the statistics can stay on in production scans. The
+ * counters of every thread are merged when a recipe reports them at the end of the run.
+ */
+public class SqlStatistics {
+    static final int SLOWEST_STATEMENTS = 10;
+    private static final int STATEMENT_PREFIX_LENGTH = 200;
+
+    /**
+     * Parse times go in log-linear buckets, eight per power of two, so percentiles
+     * are within 12.5% of the true value.
+     */
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = 64 * SUB_BUCKETS;
+
+    private final ThreadLocal<Map<String, Counters>> threadCounters = ThreadLocal.withInitial(HashMap::new);
+    private final Queue<Counters> allCounters = new ConcurrentLinkedQueue<>();
+
+    public static SqlStatistics get(ExecutionContext ctx) {
+        return ctx.computeMessageIfAbsent(SqlStatistics.class.getName(), k -> new SqlStatistics());
+    }
+
+    public Recorder recorder(String recipe) {
+        return new Recorder(this, recipe);
+    }
+
+    private Counters counters(String recipe) {
+        Map<String, Counters> counters = threadCounters.get();
+        Counters c = counters.get(recipe);
+        if (c == null) {
+            c = new Counters(recipe);
+            counters.put(recipe, c);
+            allCounters.add(c);
+        }
+        return c;
+    }
+
+    /**
+     * Inserts the statistics of a recipe into its data table, typically when the recipe completes.
+     */
+    public void report(ExecutionContext ctx, String recipe, SqlProcessingStatistics table) {
+        SqlProcessingStatistics.Row row = summarize(recipe);
+        if (row != null) {
+            table.insertRow(ctx, row);
+        }
+    }
+
+    /**
+     * Merges the counters of every thread for a recipe and resets them, so that
+     * a recipe that appears more than once in a run is only reported once.
+     * Must only be called when no recipe is recording.
+     *
+     * @return The statistics row for the recipe, or {@code null} if it examined nothing.
+     */
+    public SqlProcessingStatistics.@Nullable Row summarize(String recipe) {
+        Counters total = new Counters(recipe);
+        for (Counters c : allCounters) {
+            if (c.recipe.equals(recipe)) {
+                total.add(c);
+                c.reset();
+            }
+        }
+        if (total.stringsExamined == 0) {
+            return null;
+        }
+
+        List<SlowStatement> slowest = new ArrayList<>(total.slowest);
+        slowest.sort(comparingLong(SlowStatement::getNanos).reversed());
+        StringJoiner slowestStatements = new StringJoiner("\n");
+        for (SlowStatement s : slowest) {
+            slowestStatements.add((s.getSourcePath() == null ? "" : s.getSourcePath() + " ") +
+                                  "(" + s.getNanos() + "): " + s.getStatement());
+        }
+        long parses = total.parseSuccesses + total.parseFailures;
+        return new SqlProcessingStatistics.Row(
+                recipe,
+                total.stringsExamined,
+                total.heuristicPasses,
+                total.parseSuccesses,
+                total.parseFailures,
+                total.cacheHits,
+                total.parseNanos,
+                percentile(total.histogram, parses, 0.5),
+                percentile(total.histogram, parses, 0.99),
+                slowestStatements.toString()
+        );
+    }
+
+    static int bucket(long nanos) {
+        if (nanos < SUB_BUCKETS) {
+            return (int) Math.max(nanos, 0);
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        return ((exponent - SUB_BUCKET_BITS + 1) << SUB_BUCKET_BITS) +
+               (int) ((nanos >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1));
+    }
+
+    static long lowerBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = (bucket >>> SUB_BUCKET_BITS) + SUB_BUCKET_BITS - 1;
+        return (long) (SUB_BUCKETS + (bucket & (SUB_BUCKETS - 1))) << (exponent - SUB_BUCKET_BITS);
+    }
+
+    /**
+     * @return The upper bound of the bucket that holds the percentile, or 0 if nothing was parsed.
+     */
+    static long percentile(long[] histogram, long count, double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(count * percentile));
+        long seen = 0;
+        for (int b = 0; b < histogram.length; b++) {
+            seen += histogram[b];
+            if (seen >= rank) {
+                return b + 1 < BUCKETS ? lowerBound(b + 1) - 1 : Long.MAX_VALUE;
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+
+    /**
+     * Records on behalf of one recipe, into the counters of whichever thread it is called from.
+     */
+    @Value
+    public static class Recorder {
+        SqlStatistics statistics;
+        String recipe;
+
+        /**
+         * @param sourcePath The source file that strings are examined in until the next call, to
+         *                   attribute slow statements to.
+         * @return The calling thread's counters for the recipe, which must not be shared with other threads.
+         */
+        public Counters counters(@Nullable String sourcePath) {
+            Counters counters = statistics.counters(recipe);
+            counters.sourcePath = sourcePath;
+            return counters;
+        }
+    }
+
+    public static class Counters {
+        private final String recipe;
+
+        @Nullable
+        private String sourcePath;
+
+        private long stringsExamined;
+        private long heuristicPasses;
+        private long parseSuccesses;
+        private long parseFailures;
+        private long cacheHits;
+        private long parseNanos;
+        private final long[] histogram = new long[BUCKETS];
+
+        /**
+         * A min-heap of the slowest statements, so the fastest of them is the one replaced.
+         */
+        private final PriorityQueue<SlowStatement> slowest = new PriorityQueue<>(comparingLong(SlowStatement::getNanos));
+
+        private Counters(String recipe) {
+            this.recipe = recipe;
+        }
+
+        @Nullable
+        String getSourcePath() {
+            return sourcePath;
+        }
+
+        public void examined(boolean probablySql) {
+            stringsExamined++;
+            if (probablySql) {
+                heuristicPasses++;
+            }
+        }
+
+        void cacheHit() {
+            cacheHits++;
+        }
+
+        void parsed(String sql, long nanos, boolean success) {
+            if (success) {
+                parseSuccesses++;
+            } else {
+                parseFailures++;
+            }
+            parseNanos += nanos;
+            histogram[bucket(nanos)]++;
+            if (slowest.size() < SLOWEST_STATEMENTS || slowest.peek().getNanos() < nanos) {
+                if (slowest.size() == SLOWEST_STATEMENTS) {
+                    slowest.poll();
+                }
+                slowest.add(new SlowStatement(sourcePath, nanos, sql.length() > STATEMENT_PREFIX_LENGTH ?
+                        sql.substring(0, STATEMENT_PREFIX_LENGTH) + "..." :
+                        sql));
+            }
+        }
+
+        private void add(Counters c) {
+            stringsExamined += c.stringsExamined;
+            heuristicPasses += c.heuristicPasses;
+            parseSuccesses += c.parseSuccesses;
+            parseFailures += c.parseFailures;
+            cacheHits += c.cacheHits;
+            parseNanos += c.parseNanos;
+            for (int b = 0; b < BUCKETS; b++) {
+                histogram[b] += c.histogram[b];
+            }
+            for (SlowStatement s : c.slowest) {
+                if (slowest.size() < SLOWEST_STATEMENTS) {
+                    slowest.add(s);
+                } else if (slowest.peek().getNanos() < s.getNanos()) {
+                    slowest.poll();
+                    slowest.add(s);
+                }
+            }
+        }
+
+        private void reset() {
+            stringsExamined = 0;
+            heuristicPasses = 0;
+            parseSuccesses = 0;
+            parseFailures = 0;
+            cacheHits = 0;
+            parseNanos = 0;
+            Arrays.fill(histogram, 0);
+            slowest.clear();
+        }
+    }
+
+    @Value
+    private static class SlowStatement {
+        @Nullable
+        String sourcePath;
+
+        long nanos;
+        String statement;
+    }
+}
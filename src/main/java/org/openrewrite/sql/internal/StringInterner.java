@@ -0,0 +1,47 @@
+/*
+ * Copyright 2024 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.sql.internal;
+
+import org.openrewrite.ExecutionContext;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Canonicalizes the strings that SQL recipes put in data table rows, so that a source path,
+ * table name, column name or query text that appears in many rows is held in memory once,
+ * no matter how many rows, statements or recipes produced it. Strings live as long as the
+ * interner, which is as long as the {@link ExecutionContext} it is shared through, and so
+ * as long as the data tables that retain them anyway.
+ */
+public class StringInterner {
+    private final ConcurrentHashMap<String, String> strings = new ConcurrentHashMap<>();
+
+    public static StringInterner get(ExecutionContext ctx) {
+        return ctx.computeMessageIfAbsent(StringInterner.class.getName(), k -> new StringInterner());
+    }
+
+    /**
+     * @return The canonical instance of a string equal to {@code s}.
+     */
+    public String intern(String s) {
+        String canonical = strings.putIfAbsent(s, s);
+        return canonical == null ? s : canonical;
+    }
+
+    public int size() {
+        return strings.size();
+    }
+}
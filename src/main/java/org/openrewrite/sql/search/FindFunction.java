@@ -17,23 +17,22 @@ package org.openrewrite.sql.search;
 
 import lombok.EqualsAndHashCode;
 import lombok.Value;
-import net.sf.jsqlparser.expression.Function;
-import net.sf.jsqlparser.util.deparser.ExpressionDeParser;
 import org.openrewrite.*;
-import org.openrewrite.internal.StringUtils;
-import org.openrewrite.marker.SearchResult;
+import org.openrewrite.sql.SqlPipeline;
+import org.openrewrite.sql.internal.FunctionNameMatcher;
+import org.openrewrite.sql.internal.SqlStatistics;
 import org.openrewrite.sql.table.DatabaseFunctions;
 import org.openrewrite.sql.table.DatabaseQueries;
+import org.openrewrite.sql.table.SqlProcessingStatistics;
 
-import java.util.concurrent.atomic.AtomicReference;
-
-import static org.openrewrite.sql.trait.Traits.sql;
+import static java.util.Collections.singletonList;
 
 @Value
 @EqualsAndHashCode(callSuper = false)
-public class FindFunction extends Recipe {
+public class FindFunction extends Recipe implements SqlPipeline.Participant {
     transient DatabaseQueries databaseQueries = new DatabaseQueries(this);
     transient DatabaseFunctions databaseFunctions = new DatabaseFunctions(this);
+    transient SqlProcessingStatistics processingStatistics = new SqlProcessingStatistics(this);
 
     @Option(displayName = "Function name",
             description = "The name of the function to find, case insensitive.",
@@ -52,27 +51,23 @@ public class FindFunction extends Recipe {
 
     @Override
     public TreeVisitor<?, ExecutionContext> getVisitor() {
-        return sql().asVisitor((sql, ctx) -> {
-            AtomicReference<Boolean> found = new AtomicReference<>(false);
-            sql.visitSql(new ExpressionDeParser() {
-                @Override
-                public void visit(Function function) {
-                    if (StringUtils.matchesGlob(function.getName(), functionName)) {
-                        databaseQueries.insertRow(ctx, new DatabaseQueries.Row(
-                                sql.getCursor().firstEnclosingOrThrow(SourceFile.class).getSourcePath().toString(),
-                                sql.getString()
-                        ));
-                        databaseFunctions.insertRow(ctx, new DatabaseFunctions.Row(
-                                sql.getCursor().firstEnclosingOrThrow(SourceFile.class).getSourcePath().toString(),
-                                function.getName().toLowerCase(),
-                                sql.getString()
-                        ));
-                        found.set(true);
-                    }
-                    super.visit(function);
-                }
-            });
-            return found.get() ? SearchResult.found(sql.getTree()) : sql.getTree();
-        });
+        return SqlPipeline.visitor(this, singletonList(this));
+    }
+
+    @Override
+    public void onComplete(ExecutionContext ctx) {
+        SqlStatistics.get(ctx).report(ctx, getName(), processingStatistics);
+    }
+
+    @Override
+    public SqlPipeline.Handler newHandler() {
+        FunctionNameMatcher matcher = FunctionNameMatcher.compile(functionName);
+        return (query, function) -> {
+            String name = query.getFunctionName(function);
+            if (matcher.matches(name)) {
+                query.insertFunctionRows(databaseQueries, databaseFunctions, name);
+                query.markFound();
+            }
+        };
     }
 }
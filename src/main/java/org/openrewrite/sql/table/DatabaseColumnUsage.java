@@ -0,0 +1,68 @@
+/*
+ * Copyright 2024 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.sql.table;
+
+import lombok.Value;
+import org.jspecify.annotations.Nullable;
+import org.openrewrite.Column;
+import org.openrewrite.DataTable;
+import org.openrewrite.ExecutionContext;
+import org.openrewrite.Recipe;
+
+public class DatabaseColumnUsage extends DataTable<DatabaseColumnUsage.Row> {
+
+    public DatabaseColumnUsage(Recipe recipe) {
+        super(recipe,
+                "Database column usage",
+                "How often each database column is read/written by SQL statements, and from how many files.");
+    }
+
+    /**
+     * Rows summarize the whole run, so they are written when the run completes rather than in the first cycle.
+     */
+    @Override
+    protected boolean allowWritingInThisCycle(ExecutionContext ctx) {
+        return true;
+    }
+
+    @Value
+    public static class Row {
+        @Column(displayName = "Table",
+                description = "The table name.")
+        String table;
+
+        @Column(displayName = "Column",
+                description = "The column name. In the case of a DELETE, column will be null.")
+        @Nullable
+        String column;
+
+        @Column(displayName = "Operation",
+                description = "Whether the column is read, written, etc.")
+        DatabaseColumnsUsed.Operation operation;
+
+        @Column(displayName = "Occurrences",
+                description = "The number of statements that use the column this way.")
+        long occurrences;
+
+        @Column(displayName = "Source files",
+                description = "The number of source files with statements that use the column this way.")
+        int sourceFiles;
+
+        @Column(displayName = "Sample locations",
+                description = "A few of the places the column is used this way, as `path:line`.")
+        String sampleLocations;
+    }
+}
@@ -59,6 +59,10 @@ public class DatabaseColumnsUsed extends DataTable<DatabaseColumnsUsed.Row> {
     }
 
     public enum Operation {
+        /**
+         * The column is read, whether in a select list, a predicate, a join condition, grouping or ordering,
+         * including by an UPDATE, INSERT, DELETE or MERGE statement.
+         */
         SELECT,
         UPDATE,
         INSERT,
@@ -34,9 +34,9 @@ public class DatabaseFunctions extends DataTable<DatabaseFunctions.Row> {
                 description = "The path to the source file.")
         String sourcePath;
 
-        @Column(displayName = "Query",
-                description = "The text of the query.")
-        String query;
+        @Column(displayName = "Query ID",
+                description = "The query that contains the function, as found in the SQL queries data table.")
+        String queryId;
 
         @Column(displayName = "Function",
                 description = "Function name.")
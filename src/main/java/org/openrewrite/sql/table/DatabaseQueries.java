@@ -18,8 +18,13 @@ package org.openrewrite.sql.table;
 import lombok.Value;
 import org.openrewrite.Column;
 import org.openrewrite.DataTable;
+import org.openrewrite.ExecutionContext;
 import org.openrewrite.Recipe;
 
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
 public class DatabaseQueries extends DataTable<DatabaseQueries.Row> {
 
     public DatabaseQueries(Recipe recipe) {
@@ -28,12 +33,31 @@ public class DatabaseQueries extends DataTable<DatabaseQueries.Row> {
                 "Shows matching SQL queries.");
     }
 
+    /**
+     * Inserts the row unless this table already has a row with the same query ID and source path, so
+     * that a query is stored once per source file however many of its parts a recipe matches. Only the
+     * keys of inserted rows are held until the run ends.
+     */
+    public void insertDistinctRow(ExecutionContext ctx, Row row) {
+        Map<DatabaseQueries, Set<String>> inserted = ctx.computeMessageIfAbsent(DatabaseQueries.class.getName(),
+                k -> new ConcurrentHashMap<>());
+        // query IDs are a fixed number of hex digits, so the key can't be read two ways
+        String key = row.getQueryId() + row.getSourcePath();
+        if (inserted.computeIfAbsent(this, t -> ConcurrentHashMap.newKeySet()).add(key)) {
+            insertRow(ctx, row);
+        }
+    }
+
     @Value
     public static class Row {
         @Column(displayName = "Source path",
                 description = "The path to the source file.")
         String sourcePath;
 
+        @Column(displayName = "Query ID",
+                description = "A hash of the query text, which rows of other data tables refer to the query by.")
+        String queryId;
+
         @Column(displayName = "Query",
                 description = "The text of the query.")
         String query;
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2023 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.sql.table;
+
+import lombok.Value;
+import org.openrewrite.Column;
+import org.openrewrite.DataTable;
+import org.openrewrite.ExecutionContext;
+import org.openrewrite.Recipe;
+
+public class SqlProcessingStatistics extends DataTable<SqlProcessingStatistics.Row> {
+
+    public SqlProcessingStatistics(Recipe recipe) {
+        super(recipe,
+                "SQL processing statistics",
+                "How many strings each SQL recipe examined and parsed, and how long parsing took.");
+    }
+
+    /**
+     * Rows summarize the whole run, so they are written when the run completes rather than in the first cycle.
+     */
+    @Override
+    protected boolean allowWritingInThisCycle(ExecutionContext ctx) {
+        return true;
+    }
+
+    @Value
+    public static class Row {
+        @Column(displayName = "Recipe",
+                description = "The recipe that examined the strings.")
+        String recipe;
+
+        @Column(displayName = "Strings examined",
+                description = "The number of string literals, text files and other strings checked for SQL.")
+        long stringsExamined;
+
+        @Column(displayName = "Heuristic passes",
+                description = "The number of strings the keyword scanner considered likely to be SQL.")
+        long heuristicPasses;
+
+        @Column(displayName = "Parse successes",
+                description = "The number of statements parsed successfully by this recipe.")
+        long parseSuccesses;
+
+        @Column(displayName = "Parse failures",
+                description = "The number of statements that failed to parse.")
+        long parseFailures;
+
+        @Column(displayName = "Cache hits",
+                description = "The number of statements that were not parsed again, because this or " +
+                              "another recipe had already parsed them or found them not to be SQL.")
+        long cacheHits;
+
+        @Column(displayName = "Parse time (ns)",
+                description = "The total time spent parsing, in nanoseconds.")
+        long parseNanos;
+
+        @Column(displayName = "Median parse time (ns)",
+                description = "The median time to parse a statement, in nanoseconds, within 12.5%.")
+        long p50ParseNanos;
+
+        @Column(displayName = "99th percentile parse time (ns)",
+                description = "The 99th percentile time to parse a statement, in nanoseconds, within 12.5%.")
+        long p99ParseNanos;
+
+        @Column(displayName = "Slowest statements",
+                description = "The statements that took longest to parse, as `path (ns): statement`, one per line.")
+        String slowestStatements;
+    }
+}
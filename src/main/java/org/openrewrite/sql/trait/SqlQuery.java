@@ -17,29 +17,55 @@ package org.openrewrite.sql.trait;
 
 import lombok.Value;
 import net.sf.jsqlparser.JSQLParserException;
-import net.sf.jsqlparser.parser.CCJSqlParserUtil;
+import net.sf.jsqlparser.expression.ExpressionVisitorAdapter;
 import net.sf.jsqlparser.statement.Statement;
 import net.sf.jsqlparser.util.deparser.ExpressionDeParser;
 import net.sf.jsqlparser.util.deparser.SelectDeParser;
 import net.sf.jsqlparser.util.deparser.StatementDeParser;
 import org.jspecify.annotations.Nullable;
 import org.openrewrite.Cursor;
+import org.openrewrite.ExecutionContext;
+import org.openrewrite.SourceFile;
 import org.openrewrite.Tree;
+import org.openrewrite.TreeVisitor;
 import org.openrewrite.java.trait.Literal;
 import org.openrewrite.java.tree.J;
 import org.openrewrite.sql.internal.ChangeTrackingExpressionDeParser;
+import org.openrewrite.sql.internal.JavaStringLiteral;
+import org.openrewrite.sql.internal.SqlEdits;
+import org.openrewrite.sql.internal.SqlEvent;
+import org.openrewrite.sql.internal.SqlParseCache;
+import org.openrewrite.sql.internal.SqlParser;
+import org.openrewrite.sql.internal.SqlScanContext;
+import org.openrewrite.sql.internal.SqlStatementWalker;
+import org.openrewrite.sql.internal.SqlStatistics;
 import org.openrewrite.text.PlainText;
 import org.openrewrite.trait.SimpleTraitMatcher;
 import org.openrewrite.trait.Trait;
-
-import java.util.regex.Pattern;
+import org.openrewrite.trait.VisitFunction2;
 
 import static org.openrewrite.java.trait.Traits.literal;
+import static org.openrewrite.sql.internal.SqlKeywordScanner.probablySql;
 
 @Value
 public class SqlQuery implements Trait<Tree> {
     Cursor cursor;
 
+    /**
+     * The statement parsed by the matcher when validating the candidate, so that
+     * every consumer of this trait shares a single parse of the SQL text. The statement
+     * may be shared with other recipes through {@link SqlParseCache} and must be treated
+     * as read-only.
+     */
+    Statement statement;
+
+    /**
+     * The source file the SQL was found in, shared by every match in that source file.
+     * Null when the cursor has no enclosing source file.
+     */
+    @Nullable
+    SqlScanContext scanContext;
+
     public String getString() {
         Object value = cursor.getValue();
         if (value instanceof J.Literal) {
@@ -52,16 +78,28 @@ public class SqlQuery implements Trait<Tree> {
         throw new UnsupportedOperationException("Implement SQL extraction from tree type " + value.getClass().getName());
     }
 
-    public Statement getStatement() {
-        try {
-            return CCJSqlParserUtil.parse(getString());
-        } catch (JSQLParserException e) {
-            throw new IllegalStateException("Unexpected SQL parsing error since parsing was " +
-                                            "validated prior to the creation of the trait.");
-        }
+    /**
+     * Walks every expression of the statement, including those of subqueries, without printing it.
+     * For search recipes that only need to look at the statement. The statement may be shared
+     * with other recipes, so the visitor must not modify it.
+     *
+     * @param visitor Receives each expression. Override methods call {@code super} to descend into operands.
+     */
+    public void walk(ExpressionVisitorAdapter visitor) {
+        statement.accept(new SqlStatementWalker(visitor));
     }
 
     public Tree visitSql(ExpressionDeParser map) {
+        return visitSql(map, null);
+    }
+
+    /**
+     * @param copy A private copy of the statement for a deparser that tracks changes, when the caller
+     *             needs to find nodes in it before it is printed, or {@code null} to parse one.
+     */
+    public Tree visitSql(ExpressionDeParser map, @Nullable Statement copy) {
+        SqlEvent.@Nullable Started event = SqlEvent.DEPARSE.begin();
+        String outcome = "deparsed";
         try {
             StringBuilder sb = new StringBuilder();
 
@@ -70,11 +108,19 @@ public class SqlQuery implements Trait<Tree> {
             map.setBuffer(sb);
             StatementDeParser statementDeParser = new StatementDeParser(map, selectDeParser, sb);
 
-            getStatement().accept(statementDeParser);
+            // deparsers that track changes mutate the statement, so they get a private copy
+            Statement toVisit = !(map instanceof ChangeTrackingExpressionDeParser) ? getStatement() :
+                    copy == null ? SqlParser.parse(getString()) : copy;
+            toVisit.accept(statementDeParser);
             return updateSql(sb.toString(), map);
         } catch (Throwable t) {
             // this is invalid sql
+            outcome = "failed";
             return getTree();
+        } finally {
+            if (event != null) {
+                event.commit(scanContext == null ? null : scanContext.getSourcePath(), getString().length(), outcome);
+            }
         }
     }
 
@@ -82,49 +128,117 @@ public class SqlQuery implements Trait<Tree> {
         if (deparser instanceof ChangeTrackingExpressionDeParser) {
             sql = ChangeTrackingExpressionDeParser.applyChange(getString(), sql);
         }
+        return withSql(sql);
+    }
+
+    /**
+     * @param sql The new SQL text, typically the original text with {@link SqlEdits} applied.
+     * @return The tree holding the SQL, updated to hold the new text.
+     */
+    public Tree withSql(String sql) {
         Tree tree = getTree();
         if (tree instanceof PlainText) {
             return ((PlainText) tree).withText(sql);
         } else if (tree instanceof J.Literal) {
             J.Literal literal = (J.Literal) tree;
+            String value = literal.getValue() instanceof String ? (String) literal.getValue() : getString();
             return literal
                     .withValue(sql)
-                    .withValueSource("\"" + sql + "\"");
+                    .withValueSource(JavaStringLiteral.withValue(literal.getValueSource(), value, sql));
         }
         return tree;
     }
 
     public static class Matcher extends SimpleTraitMatcher<SqlQuery> {
-        private static final Pattern SIMPLE_SQL_HEURISTIC = Pattern.compile("SELECT|UPDATE|DELETE|INSERT",
-                Pattern.CASE_INSENSITIVE);
+        @Nullable
+        private String recipe;
+
+        /**
+         * Records the strings the visitor examines and the statements it parses on behalf of a recipe,
+         * for the {@link org.openrewrite.sql.table.SqlProcessingStatistics} data table.
+         */
+        public Matcher recordStatistics(String recipe) {
+            this.recipe = recipe;
+            return this;
+        }
+
+        @Override
+        public <P> TreeVisitor<? extends Tree, P> asVisitor(VisitFunction2<SqlQuery, P> visitor) {
+            return new TreeVisitor<Tree, P>() {
+                @Nullable
+                SqlScanContext scanContext;
+
+                SqlStatistics.@Nullable Counters statistics;
+
+                @Override
+                public @Nullable Tree visit(@Nullable Tree tree, P p) {
+                    if (tree instanceof SourceFile) {
+                        scanContext = SqlScanContext.of((SourceFile) tree);
+                        if (recipe != null && p instanceof ExecutionContext) {
+                            statistics = SqlStatistics.get((ExecutionContext) p)
+                                    .recorder(recipe)
+                                    .counters(scanContext.getSourcePath());
+                        }
+                    }
+                    if (tree != null) {
+                        SqlQuery sql = test(new Cursor(getCursor(), tree),
+                                p instanceof ExecutionContext ? SqlParseCache.get((ExecutionContext) p) : null,
+                                scanContext, statistics);
+                        if (sql != null) {
+                            return visitor.visit(sql, p);
+                        }
+                    }
+                    return super.visit(tree, p);
+                }
+            };
+        }
 
         @Override
         protected @Nullable SqlQuery test(Cursor cursor) {
+            return test(cursor, null, null, null);
+        }
+
+        private @Nullable SqlQuery test(Cursor cursor, @Nullable SqlParseCache cache, @Nullable SqlScanContext scanContext,
+                                        SqlStatistics.@Nullable Counters statistics) {
             String sql = null;
             Object value = cursor.getValue();
             if (value instanceof J.Literal) {
                 J.Literal literal = (J.Literal) value;
-                if (probablySql(literal.getValue())) {
-                    sql = literal.getValue().toString();
+                if (literal.getValue() instanceof String) {
+                    sql = (String) literal.getValue();
                 }
             } else if (value instanceof PlainText) {
-                PlainText plainText = (PlainText) value;
-                if (probablySql(plainText.getText())) {
-                    sql = plainText.getText();
-                }
+                sql = ((PlainText) value).getText();
+            }
+            if (sql == null) {
+                return null;
             }
-            if (sql != null) {
-                try {
-                    CCJSqlParserUtil.parse(sql);
-                    return new SqlQuery(cursor);
-                } catch (JSQLParserException ignored) {
+
+            boolean probablySql = probablySql(sql);
+            if (statistics != null) {
+                statistics.examined(probablySql);
+            }
+            if (probablySql) {
+                Statement statement;
+                if (cache != null) {
+                    statement = cache.parse(sql, statistics);
+                } else {
+                    try {
+                        statement = SqlParser.parse(sql);
+                    } catch (JSQLParserException ignored) {
+                        statement = null;
+                    }
+                }
+                if (statement != null) {
+                    return new SqlQuery(cursor, statement, scanContext == null ? scanContext(cursor) : scanContext);
                 }
             }
             return null;
         }
 
-        static boolean probablySql(@Nullable Object maybeSql) {
-            return maybeSql != null && SIMPLE_SQL_HEURISTIC.matcher(maybeSql.toString()).find();
+        private static @Nullable SqlScanContext scanContext(Cursor cursor) {
+            SourceFile sourceFile = cursor.firstEnclosing(SourceFile.class);
+            return sourceFile == null ? null : SqlScanContext.of(sourceFile);
         }
     }
 }
@@ -20,6 +20,7 @@ import org.openrewrite.DocumentExample;
 import org.openrewrite.test.RecipeSpec;
 import org.openrewrite.test.RewriteTest;
 
+import static org.openrewrite.java.Assertions.java;
 import static org.openrewrite.test.SourceSpecs.text;
 
 class ChangeFunctionNameTest implements RewriteTest {
@@ -44,4 +45,101 @@ class ChangeFunctionNameTest implements RewriteTest {
           )
         );
     }
+
+    @Test
+    void preserveFormatting() {
+        rewriteRun(
+          text(
+            """
+              select nvl(a, b),
+                     nvl(c, d)
+                from table
+               where id = 1
+              """,
+            """
+              select COALESCE(a, b),
+                     COALESCE(c, d)
+                from table
+               where id = 1
+              """,
+            spec -> spec.path("q.sql")
+          )
+        );
+    }
+
+    @Test
+    void createViewAsSelect() {
+        rewriteRun(
+          text(
+            """
+              CREATE VIEW v AS SELECT NVL(a, b) FROM table WHERE id = 1
+              """,
+            """
+              CREATE VIEW v AS SELECT COALESCE(a, b) FROM table WHERE id = 1
+              """,
+            spec -> spec.path("q.sql")
+          )
+        );
+    }
+
+    @Test
+    void insertOnDuplicateKeyUpdate() {
+        rewriteRun(
+          text(
+            """
+              INSERT INTO users (a, b) VALUES (1, 2) ON DUPLICATE KEY UPDATE b = NVL(b, 0)
+              """,
+            """
+              INSERT INTO users (a, b) VALUES (1, 2) ON DUPLICATE KEY UPDATE b = COALESCE(b, 0)
+              """,
+            spec -> spec.path("q.sql")
+          )
+        );
+    }
+
+    @Test
+    void javaTextBlock() {
+        rewriteRun(
+          //language=java
+          java(
+            """
+              class Test {
+                  String sql = \"""
+                          SELECT nvl(a, b)
+                            FROM t
+                           WHERE c = '\\t'
+                          \""";
+              }
+              """,
+            """
+              class Test {
+                  String sql = \"""
+                          SELECT COALESCE(a, b)
+                            FROM t
+                           WHERE c = '\\t'
+                          \""";
+              }
+              """
+          )
+        );
+    }
+
+    @Test
+    void javaLiteralWithEscapes() {
+        rewriteRun(
+          //language=java
+          java(
+            """
+              class Test {
+                  String sql = "SELECT nvl(\\"a\\", b) FROM t WHERE c = '\\t'";
+              }
+              """,
+            """
+              class Test {
+                  String sql = "SELECT COALESCE(\\"a\\", b) FROM t WHERE c = '\\t'";
+              }
+              """
+          )
+        );
+    }
 }
@@ -16,15 +16,21 @@
 package org.openrewrite.sql;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 import org.openrewrite.DocumentExample;
 import org.openrewrite.Tree;
 import org.openrewrite.marker.GitProvenance;
+import org.openrewrite.sql.internal.RowSpill;
+import org.openrewrite.sql.table.DatabaseColumnUsage;
 import org.openrewrite.sql.table.DatabaseColumnsUsed;
 import org.openrewrite.test.RecipeSpec;
 import org.openrewrite.test.RewriteTest;
 
+import java.nio.file.Path;
+import java.util.List;
+
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.openrewrite.java.Assertions.java;
 import static org.openrewrite.test.SourceSpecs.text;
@@ -54,7 +60,9 @@ class FindSqlTest implements RewriteTest {
         //noinspection SqlDialectInspection
         rewriteRun(
           spec -> spec.dataTable(DatabaseColumnsUsed.Row.class, rows -> {
-              assertThat(rows).hasSize(1);
+              assertThat(rows).extracting(DatabaseColumnsUsed.Row::getColumn)
+                .startsWith("repository_origin")
+                .contains("run_id");
               DatabaseColumnsUsed.Row row = rows.get(0);
               assertThat(row.getOperation()).isEqualTo(DatabaseColumnsUsed.Operation.SELECT);
               assertThat(row.getTable()).isEqualTo("recipe_run_repository");
@@ -84,7 +92,9 @@ class FindSqlTest implements RewriteTest {
     void selectInJava() {
         rewriteRun(
           spec -> spec.dataTable(DatabaseColumnsUsed.Row.class, rows -> {
-              assertThat(rows).hasSize(1);
+              assertThat(rows).extracting(DatabaseColumnsUsed.Row::getColumn)
+                .startsWith("repository_origin")
+                .contains("run_id");
               DatabaseColumnsUsed.Row row = rows.get(0);
               assertThat(row.getLineNumber()).isEqualTo(2);
               assertThat(row.getOperation()).isEqualTo(DatabaseColumnsUsed.Operation.SELECT);
@@ -111,11 +121,66 @@ class FindSqlTest implements RewriteTest {
         );
     }
 
+    @Test
+    void lineNumbersAfterJavadocAndTextBlocks() {
+        rewriteRun(
+          spec -> spec.dataTable(DatabaseColumnsUsed.Row.class, rows -> {
+              assertThat(rows).extracting(DatabaseColumnsUsed.Row::getLineNumber).containsExactly(6, 12);
+          }).cycles(1).expectedCyclesThatMakeChanges(1),
+          java(
+            //language=java
+            """
+              class Test {
+                  /**
+                   * The users.
+                   * @see Test
+                   */
+                  String aSelect = """
+                    SELECT name FROM users
+                  """;
+
+                  // deleted
+                  String aDelete =
+                    "DELETE FROM users";
+              }
+              """,
+            spec -> spec.after(a -> {
+                assertThat(a).contains("/*~~>*/");
+                return a;
+            })
+          )
+        );
+    }
+
+    @Test
+    void lineNumbersInYamlFlowSequence() {
+        rewriteRun(
+          spec -> spec.dataTable(DatabaseColumnsUsed.Row.class, rows -> {
+              assertThat(rows).extracting(DatabaseColumnsUsed.Row::getLineNumber).containsExactly(2, 3);
+          }).cycles(1).expectedCyclesThatMakeChanges(1),
+          yaml(
+            //language=yaml
+            """
+              queries: [
+                "SELECT name FROM users",
+                "DELETE FROM users"
+              ]
+              """,
+            spec -> spec.after(a -> {
+                assertThat(a).contains("~~>");
+                return a;
+            })
+          )
+        );
+    }
+
     @Test
     void selectInYaml() {
         rewriteRun(
           spec -> spec.dataTable(DatabaseColumnsUsed.Row.class, rows -> {
-              assertThat(rows).hasSize(1);
+              assertThat(rows).extracting(DatabaseColumnsUsed.Row::getColumn)
+                .startsWith("repository_origin")
+                .contains("run_id");
               DatabaseColumnsUsed.Row row = rows.get(0);
               assertThat(row.getLineNumber()).isEqualTo(2);
               assertThat(row.getOperation()).isEqualTo(DatabaseColumnsUsed.Operation.SELECT);
@@ -140,12 +205,141 @@ class FindSqlTest implements RewriteTest {
         );
     }
 
+    @Test
+    void multipleStatementsInSqlFile() {
+        //noinspection SqlDialectInspection
+        rewriteRun(
+          spec -> spec.dataTable(DatabaseColumnsUsed.Row.class, rows -> {
+              assertThat(rows).hasSize(2);
+              assertThat(rows.get(0).getOperation()).isEqualTo(DatabaseColumnsUsed.Operation.UPDATE);
+              assertThat(rows.get(0).getLineNumber()).isEqualTo(2);
+              assertThat(rows.get(1).getOperation()).isEqualTo(DatabaseColumnsUsed.Operation.DELETE);
+              assertThat(rows.get(1).getLineNumber()).isEqualTo(5);
+          }),
+          text(
+            // language=sql
+            """
+              -- V2__cleanup.sql
+              UPDATE commit
+              SET state = 'CANCELED;QUEUED';
+
+              DELETE FROM access_token;
+              """,
+            spec -> spec
+              .path("V2__cleanup.sql")
+              .after(a -> {
+                  assertThat(a).startsWith("~~>");
+                  return a;
+              })
+          )
+        );
+    }
+
+    @Test
+    void largeSqlFileAnalyzedInParallelKeepsLineOrder() {
+        StringBuilder script = new StringBuilder();
+        for (int i = 1; i <= 4_000; i++) {
+            script.append("UPDATE table_").append(i).append(" SET state = 'CANCELED';\n");
+        }
+        rewriteRun(
+          spec -> spec
+            .recipe(new FindSql(4, null, null))
+            .dataTable(DatabaseColumnsUsed.Row.class, rows -> {
+                assertThat(rows).hasSize(4_000);
+                for (int i = 0; i < rows.size(); i++) {
+                    assertThat(rows.get(i).getLineNumber()).isEqualTo(i + 1);
+                    assertThat(rows.get(i).getTable()).isEqualTo("table_" + (i + 1));
+                }
+            }),
+          text(
+            script.toString(),
+            spec -> spec
+              .path("seed.sql")
+              .after(a -> {
+                  assertThat(a).startsWith("~~>");
+                  return a;
+              })
+          )
+        );
+    }
+
+    @Test
+    void spillRowsToDisk(@TempDir Path spillDirectory) {
+        //noinspection SqlDialectInspection
+        rewriteRun(
+          spec -> spec
+            .recipe(new FindSql(1, spillDirectory.toString(), null))
+            .afterRecipe(run -> {
+                List<DatabaseColumnsUsed.Row> rows = new RowSpill<>(DatabaseColumnsUsed.Row.class,
+                  spillDirectory.resolve(DatabaseColumnsUsed.Row.class.getName() + ".csv")).readAll();
+                assertThat(rows)
+                  .extracting(r -> r.getLineNumber() + " " + r.getOperation() + " " + r.getTable() + "." + r.getColumn())
+                  .containsExactly("1 UPDATE commit.state", "2 DELETE access_token.null");
+            }),
+          text(
+            // language=sql
+            """
+              UPDATE commit SET state = 'CANCELED';
+              DELETE FROM access_token;
+              """,
+            spec -> spec
+              .path("cleanup.sql")
+              .after(a -> {
+                  assertThat(a).startsWith("~~>");
+                  return a;
+              })
+          )
+        );
+    }
+
+    @Test
+    void aggregateColumnUsage() {
+        //noinspection SqlDialectInspection
+        rewriteRun(
+          spec -> spec
+            .recipe(new FindSql(1, null, true))
+            .dataTable(DatabaseColumnUsage.Row.class, rows ->
+              assertThat(rows)
+                .extracting(r -> r.getOperation() + " " + r.getTable() + "." + r.getColumn() + " " +
+                                 r.getOccurrences() + "/" + r.getSourceFiles())
+                .containsExactly(
+                  "SELECT users.id 2/2",
+                  "SELECT users.name 3/2",
+                  "UPDATE users.name 1/1"
+                )),
+          text(
+            // language=sql
+            """
+              SELECT name FROM users WHERE id = 1;
+              SELECT name FROM users;
+              """,
+            spec -> spec.path("a.sql").after(a -> a)
+          ),
+          text(
+            // language=sql
+            """
+              UPDATE users SET name = 'x' WHERE id = 2;
+              SELECT name FROM users;
+              """,
+            spec -> spec.path("b.sql").after(a -> a)
+          )
+        );
+    }
+
+    @Test
+    void aggregateCannotBeSpilled() {
+        assertThat(new FindSql(1, "build/sql-spill", true).validate().isInvalid()).isTrue();
+        assertThat(new FindSql(1, "build/sql-spill", false).validate().isValid()).isTrue();
+    }
+
     @Test
     void update() {
         //noinspection SqlDialectInspection
         rewriteRun(
           spec -> spec.dataTable(DatabaseColumnsUsed.Row.class, rows -> {
-              assertThat(rows).hasSize(1);
+              assertThat(rows)
+                .extracting(r -> r.getOperation() + " " + r.getTable() + "." + r.getColumn())
+                .containsExactly("UPDATE commit.state", "SELECT commit.state", "SELECT commit.commit_id");
               DatabaseColumnsUsed.Row row = rows.get(0);
               assertThat(row.getOperation()).isEqualTo(DatabaseColumnsUsed.Operation.UPDATE);
               assertThat(row.getTable()).isEqualTo("commit");
@@ -174,7 +368,9 @@ class FindSqlTest implements RewriteTest {
         //noinspection SqlDialectInspection
         rewriteRun(
           spec -> spec.dataTable(DatabaseColumnsUsed.Row.class, rows -> {
-              assertThat(rows).hasSize(1);
+              assertThat(rows)
+                .extracting(r -> r.getOperation() + " " + r.getTable() + "." + r.getColumn())
+                .containsExactly("DELETE access_token.null", "SELECT access_token.email");
               DatabaseColumnsUsed.Row row = rows.get(0);
               assertThat(row.getOperation()).isEqualTo(DatabaseColumnsUsed.Operation.DELETE);
               assertThat(row.getTable()).isEqualTo("access_token");
@@ -201,7 +397,7 @@ class FindSqlTest implements RewriteTest {
     void allColumns() {
         rewriteRun(
           spec -> spec.dataTable(DatabaseColumnsUsed.Row.class, rows -> {
-              assertThat(rows).hasSize(1);
+              assertThat(rows).extracting(DatabaseColumnsUsed.Row::getColumn).containsExactly("*", "id");
               DatabaseColumnsUsed.Row row = rows.get(0);
               assertThat(row.getOperation()).isEqualTo(DatabaseColumnsUsed.Operation.SELECT);
               assertThat(row.getTable()).isEqualTo("table");
@@ -15,10 +15,20 @@
  */
 package org.openrewrite.sql;
 
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
+import org.openrewrite.sql.internal.SqlScanContext;
+import org.openrewrite.sql.table.DatabaseColumnsUsed;
+import org.openrewrite.text.PlainText;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.openrewrite.Tree.randomId;
+import static org.openrewrite.marker.Markers.EMPTY;
 
 class SqlDetectorTest {
 
@@ -58,4 +68,96 @@ class SqlDetectorTest {
         assertThat(detector.isSql(maybeSql)).isTrue();
     }
 
+    @Test
+    void streamsRowsInStatementOrder() {
+        String sql = "UPDATE tab SET x = 1;\nSELECT a, b FROM other";
+        SqlScanContext context = SqlScanContext.of(new PlainText(randomId(), Paths.get("queries.sql"), EMPTY,
+          null, false, null, null, sql, null), null);
+
+        List<DatabaseColumnsUsed.Row> rows = new ArrayList<>();
+        detector.rows(context, 1, sql, 1, rows::add);
+
+        assertThat(rows)
+          .extracting(r -> r.getLineNumber() + " " + r.getTable() + "." + r.getColumn())
+          .containsExactly("1 tab.x", "2 other.a", "2 other.b");
+    }
+
+    @Test
+    void joinsResolveAliases() {
+        assertThat(columns("""
+          SELECT u.name, o.total
+          FROM users u
+          JOIN orders o ON o.user_id = u.id
+          WHERE u.active = 1
+          GROUP BY u.name, o.total
+          ORDER BY o.total
+          """))
+          .containsExactly(
+            "SELECT users.name",
+            "SELECT orders.total",
+            "SELECT orders.user_id",
+            "SELECT users.id",
+            "SELECT users.active"
+          );
+    }
+
+    @Test
+    void subqueriesAndCommonTableExpressions() {
+        assertThat(columns("""
+          WITH recent AS (SELECT user_id FROM orders WHERE placed > :since)
+          SELECT name FROM users
+          WHERE id IN (SELECT user_id FROM recent)
+          AND EXISTS (SELECT 1 FROM sessions s WHERE s.user_id = users.id)
+          """))
+          .containsExactly(
+            "SELECT orders.user_id",
+            "SELECT orders.placed",
+            "SELECT users.name",
+            "SELECT users.id",
+            "SELECT sessions.user_id"
+          );
+    }
+
+    @Test
+    void selectListAliasesAreNotColumns() {
+        assertThat(columns("SELECT sum(amount) AS total, region FROM sales GROUP BY region ORDER BY total"))
+          .containsExactly("SELECT sales.amount", "SELECT sales.region");
+    }
+
+    @Test
+    void insert() {
+        assertThat(columns("INSERT INTO audit (actor, action) SELECT name, 'login' FROM users WHERE id = 1"))
+          .containsExactly(
+            "INSERT audit.actor",
+            "INSERT audit.action",
+            "SELECT users.name",
+            "SELECT users.id"
+          );
+    }
+
+    @Test
+    void merge() {
+        assertThat(columns("""
+          MERGE INTO stock s USING deliveries d ON (s.item = d.item)
+          WHEN MATCHED THEN UPDATE SET s.quantity = s.quantity + d.quantity
+          WHEN NOT MATCHED THEN INSERT (item, quantity) VALUES (d.item, d.quantity)
+          """))
+          .containsExactly(
+            "SELECT stock.item",
+            "SELECT deliveries.item",
+            "UPDATE stock.quantity",
+            "SELECT stock.quantity",
+            "SELECT deliveries.quantity",
+            "INSERT stock.item",
+            "INSERT stock.quantity"
+          );
+    }
+
+    private List<String> columns(String sql) {
+        SqlScanContext context = SqlScanContext.of(new PlainText(randomId(), Paths.get("queries.sql"), EMPTY,
+          null, false, null, null, sql, null), null);
+        List<String> columns = new ArrayList<>();
+        detector.rows(context, 1, sql, 1, r -> columns.add(r.getOperation() + " " + r.getTable() + "." + r.getColumn()));
+        return columns;
+    }
 }
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2023 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.sql;
+
+import net.sf.jsqlparser.expression.ExpressionVisitorAdapter;
+import net.sf.jsqlparser.expression.Function;
+import org.junit.jupiter.api.Test;
+import org.openrewrite.Cursor;
+import org.openrewrite.DocumentExample;
+import org.openrewrite.InMemoryExecutionContext;
+import org.openrewrite.config.DataTableDescriptor;
+import org.openrewrite.sql.search.FindFunction;
+import org.openrewrite.sql.table.DatabaseColumnsUsed;
+import org.openrewrite.sql.table.DatabaseFunctions;
+import org.openrewrite.sql.table.DatabaseQueries;
+import org.openrewrite.sql.trait.SqlQuery;
+import org.openrewrite.test.RewriteTest;
+import org.openrewrite.text.PlainText;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.openrewrite.Tree.randomId;
+import static org.openrewrite.marker.Markers.EMPTY;
+import static org.openrewrite.test.SourceSpecs.text;
+
+class SqlPipelineTest implements RewriteTest {
+
+    @DocumentExample
+    @Test
+    void renamesAreAppliedInOrder() {
+        rewriteRun(
+          spec -> spec.recipe(new SqlPipeline(asList(
+            new ChangeFunctionName("NVL", "COALESCE"),
+            new ChangeFunctionName("COALESCE", "IFNULL")
+          ))),
+          text(
+            """
+              SELECT nvl(a, b), coalesce(c, d) FROM table WHERE id = 1
+              """,
+            """
+              SELECT IFNULL(a, b), IFNULL(c, d) FROM table WHERE id = 1
+              """,
+            spec -> spec.path("q.sql")
+          )
+        );
+    }
+
+    @Test
+    void laterHandlersSeeEarlierRenames() {
+        rewriteRun(
+          spec -> spec.recipe(new SqlPipeline(asList(
+            new ChangeFunctionName("NVL", "COALESCE"),
+            new FindFunction("coalesce")
+          ))),
+          text(
+            """
+              SELECT NVL(a, b) FROM table WHERE id = 1
+              """,
+            """
+              ~~>SELECT COALESCE(a, b) FROM table WHERE id = 1
+              """,
+            spec -> spec.path("q.sql")
+          )
+        );
+    }
+
+    @Test
+    void otherRecipesRunAfterParticipants() {
+        rewriteRun(
+          spec -> spec
+            .recipe(new SqlPipeline(asList(
+              new ChangeFunctionName("NVL", "COALESCE"),
+              new FindSql(1, null, null)
+            )))
+            .dataTable(DatabaseColumnsUsed.Row.class, rows -> assertThat(rows).isNotEmpty()),
+          text(
+            """
+              SELECT NVL(a, b) FROM table WHERE id = 1
+              """,
+            """
+              ~~>SELECT COALESCE(a, b) FROM table WHERE id = 1
+              """,
+            spec -> spec.path("q.sql")
+          )
+        );
+    }
+
+    @Test
+    void declaredInYaml() {
+        rewriteRun(
+          spec -> spec.recipeFromYaml(
+            //language=yaml
+            """
+              type: specs.openrewrite.org/v1beta/recipe
+              name: org.openrewrite.sql.test.Pipeline
+              displayName: Pipeline
+              description: Renames NVL and finds SQL in one pass.
+              recipeList:
+                - org.openrewrite.sql.SqlPipeline:
+                    recipes:
+                      - "@c": org.openrewrite.sql.ChangeFunctionName
+                        oldFunctionName: NVL
+                        newFunctionName: COALESCE
+                      - "@c": org.openrewrite.sql.FindSql
+                        parallelism: 1
+              """,
+            "org.openrewrite.sql.test.Pipeline"
+          ),
+          text(
+            """
+              SELECT NVL(a, b) FROM table WHERE id = 1
+              """,
+            """
+              ~~>SELECT COALESCE(a, b) FROM table WHERE id = 1
+              """,
+            spec -> spec.path("q.sql")
+          )
+        );
+    }
+
+    @Test
+    void participantDataTablesAreDescribed() {
+        assertThat(new SqlPipeline(singletonList(new FindFunction("nvl"))).getDataTableDescriptors())
+          .extracting(DataTableDescriptor::getName)
+          .contains(DatabaseQueries.class.getName(), DatabaseFunctions.class.getName());
+    }
+
+    @Test
+    void unlocatedRenamesOnlyChangeTheChosenFunctions() {
+        PlainText text = new PlainText(randomId(), Paths.get("q.sql"), EMPTY, null, false, null, null,
+          "SELECT nvl(a, b), nvl(c, d) FROM t", null);
+        SqlQuery sql = new SqlQuery.Matcher().get(new Cursor(new Cursor(null, Cursor.ROOT_VALUE), text)).orElseThrow();
+        List<Function> functions = new ArrayList<>();
+        sql.walk(new ExpressionVisitorAdapter() {
+            @Override
+            public void visit(Function function) {
+                functions.add(function);
+                super.visit(function);
+            }
+        });
+
+        // without a position the rename can't be placed in the text, so the statement is printed instead
+        functions.get(0).setASTNode(null);
+        SqlPipeline.Query query = new SqlPipeline.Query(sql, new InMemoryExecutionContext());
+        query.renameFunction(functions.get(0), "COALESCE");
+
+        assertThat(((PlainText) query.apply()).getText()).isEqualTo("SELECT COALESCE(a, b), nvl(c, d) FROM t");
+    }
+}
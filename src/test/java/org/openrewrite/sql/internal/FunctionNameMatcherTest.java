@@ -0,0 +1,51 @@
+/*
+ * Copyright 2024 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.sql.internal;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FunctionNameMatcherTest {
+
+    @Test
+    void exactNameIgnoresCase() {
+        FunctionNameMatcher nvl = FunctionNameMatcher.compile("nvl");
+        assertThat(nvl.matches("NVL")).isTrue();
+        assertThat(nvl.matches("nvl")).isTrue();
+        assertThat(nvl.matches("nvl2")).isFalse();
+        assertThat(nvl.matches("nv")).isFalse();
+        assertThat(nvl.matches(null)).isFalse();
+    }
+
+    @Test
+    void glob() {
+        FunctionNameMatcher matcher = FunctionNameMatcher.compile("to_*");
+        assertThat(matcher.matches("TO_CHAR")).isTrue();
+        assertThat(matcher.matches("to_")).isTrue();
+        assertThat(matcher.matches("xto_char")).isFalse();
+
+        FunctionNameMatcher nvlAny = FunctionNameMatcher.compile("nvl?");
+        assertThat(nvlAny.matches("NVL2")).isTrue();
+        assertThat(nvlAny.matches("NVL")).isFalse();
+    }
+
+    @Test
+    void regexCharactersAreLiteral() {
+        assertThat(FunctionNameMatcher.compile("a.b*").matches("a.bc")).isTrue();
+        assertThat(FunctionNameMatcher.compile("a.b*").matches("axbc")).isFalse();
+    }
+}
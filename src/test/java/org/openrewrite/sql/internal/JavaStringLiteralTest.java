@@ -0,0 +1,73 @@
+/*
+ * Copyright 2024 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.sql.internal;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JavaStringLiteralTest {
+
+    @Test
+    void keepsEscapesOutsideTheChange() {
+        assertThat(JavaStringLiteral.withValue(
+          "\"SELECT nvl(\\\"a\\\", b)\\nFROM t WHERE c = '\\t'\"",
+          "SELECT nvl(\"a\", b)\nFROM t WHERE c = '\t'",
+          "SELECT COALESCE(\"a\", b)\nFROM t WHERE c = '\t'"
+        )).isEqualTo("\"SELECT COALESCE(\\\"a\\\", b)\\nFROM t WHERE c = '\\t'\"");
+    }
+
+    @Test
+    void escapesTheReplacement() {
+        assertThat(JavaStringLiteral.withValue("\"SELECT a\"", "SELECT a", "SELECT \"a\"\n"))
+          .isEqualTo("\"SELECT \\\"a\\\"\\n\"");
+    }
+
+    @Test
+    void unicodeAndOctalEscapes() {
+        assertThat(JavaStringLiteral.withValue("\"SELECT \\u0061\\101 FROM t\"", "SELECT aA FROM t", "SELECT aA FROM u"))
+          .isEqualTo("\"SELECT \\u0061\\101 FROM u\"");
+    }
+
+    @Test
+    void textBlock() {
+        String source = "\"\"\"\n        SELECT nvl(a, b)\n          FROM t\n         WHERE c = '\\t'\n        \"\"\"";
+        assertThat(JavaStringLiteral.withValue(source,
+          "SELECT nvl(a, b)\n  FROM t\n WHERE c = '\t'\n",
+          "SELECT COALESCE(a, b)\n  FROM t\n WHERE c = '\t'\n"
+        )).isEqualTo("\"\"\"\n        SELECT COALESCE(a, b)\n          FROM t\n         WHERE c = '\\t'\n        \"\"\"");
+    }
+
+    @Test
+    void textBlockNewLinesKeepIndentation() {
+        String source = "\"\"\"\n    SELECT a FROM t\n    \"\"\"";
+        assertThat(JavaStringLiteral.withValue(source, "SELECT a FROM t\n", "SELECT a\nFROM t\n"))
+          .isEqualTo("\"\"\"\n    SELECT a\n    FROM t\n    \"\"\"");
+    }
+
+    @Test
+    void textBlockLineContinuation() {
+        String source = "\"\"\"\n    SELECT a \\\n    FROM t\\\n    \"\"\"";
+        assertThat(JavaStringLiteral.withValue(source, "SELECT a FROM t", "SELECT a FROM u"))
+          .isEqualTo("\"\"\"\n    SELECT a \\\n    FROM u\\\n    \"\"\"");
+    }
+
+    @Test
+    void sourceThatDoesNotMatchTheValueIsRewritten() {
+        assertThat(JavaStringLiteral.withValue("\"SELECT b\"", "SELECT a", "SELECT 'c'\t"))
+          .isEqualTo("\"SELECT 'c'\\t\"");
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2024 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.sql.internal;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NonSqlFilterTest {
+
+    @Test
+    void remembersAddedStrings() {
+        NonSqlFilter filter = new NonSqlFilter(1024);
+        filter.add("Failed to update user");
+
+        assertThat(filter.mightContain("Failed to update user")).isTrue();
+        assertThat(filter.mightContain("select * from table where id = 1")).isFalse();
+    }
+
+    @Test
+    void fixedMemoryBudget() {
+        NonSqlFilter filter = new NonSqlFilter(64);
+        for (int i = 0; i < 10_000; i++) {
+            filter.add("Failed to update user " + i);
+        }
+        assertThat(filter.mightContain("Failed to update user 9999")).isTrue();
+    }
+
+    @Test
+    void saveAndLoad(@TempDir Path tempDir) throws IOException {
+        NonSqlFilter filter = new NonSqlFilter(1024);
+        filter.add("Failed to update user");
+
+        Path saved = tempDir.resolve("non-sql.bin");
+        filter.save(saved);
+
+        assertThat(NonSqlFilter.load(saved).mightContain("Failed to update user")).isTrue();
+    }
+}
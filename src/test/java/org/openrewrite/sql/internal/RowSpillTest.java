@@ -0,0 +1,110 @@
+/*
+ * Copyright 2024 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.sql.internal;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openrewrite.InMemoryExecutionContext;
+import org.openrewrite.sql.table.DatabaseColumnsUsed;
+import org.openrewrite.sql.table.DatabaseQueries;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RowSpillTest {
+
+    @Test
+    void roundTripsRows(@TempDir Path dir) {
+        RowSpill<DatabaseColumnsUsed.Row> spill = new RowSpill<>(DatabaseColumnsUsed.Row.class, dir.resolve("used.csv"));
+        DatabaseColumnsUsed.Row select = new DatabaseColumnsUsed.Row("src/main/resources/q.sql", 3, "1234",
+          DatabaseColumnsUsed.Operation.SELECT, "users", "name");
+        DatabaseColumnsUsed.Row delete = new DatabaseColumnsUsed.Row("a, \"quoted\"\npath", 7, null,
+          DatabaseColumnsUsed.Operation.DELETE, "", null);
+
+        spill.append(singletonList(select));
+        spill.append(asList(delete, select));
+
+        assertThat(spill.readAll()).containsExactly(select, delete, select);
+    }
+
+    @Test
+    void readsNothingBeforeFirstAppend(@TempDir Path dir) {
+        RowSpill<DatabaseQueries.Row> spill = new RowSpill<>(DatabaseQueries.Row.class, dir.resolve("queries.csv"));
+        assertThat(spill.readAll()).isEmpty();
+    }
+
+    @Test
+    void newRunReplacesPreviousRows(@TempDir Path dir) {
+        DatabaseQueries.Row first = new DatabaseQueries.Row("a.sql", "1", "select 1");
+        DatabaseQueries.Row second = new DatabaseQueries.Row("b.sql", "2", "select 2");
+
+        RowSpill.get(new InMemoryExecutionContext(), DatabaseQueries.Row.class, dir).append(singletonList(first));
+        RowSpill<DatabaseQueries.Row> spill = RowSpill.get(new InMemoryExecutionContext(), DatabaseQueries.Row.class, dir);
+        spill.append(singletonList(second));
+        spill.append(singletonList(second));
+
+        assertThat(spill.readAll()).containsExactly(second, second);
+    }
+
+    @Test
+    void columnsAreMatchedByHeader(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("queries.csv");
+        Files.write(file, "query,sourcePath,queryId\nselect 1,a.sql,1\n".getBytes(UTF_8));
+        assertThat(new RowSpill<>(DatabaseQueries.Row.class, file).readAll())
+          .containsExactly(new DatabaseQueries.Row("a.sql", "1", "select 1"));
+    }
+
+    @Test
+    void addedRowsAreAppendedWhenFlushed(@TempDir Path dir) {
+        RowSpill<DatabaseQueries.Row> spill = new RowSpill<>(DatabaseQueries.Row.class, dir.resolve("queries.csv"));
+        DatabaseQueries.Row row = new DatabaseQueries.Row("a.sql", "1", "select 1");
+
+        spill.add(row);
+        assertThat(spill.readAll()).isEmpty();
+
+        spill.flush();
+        assertThat(spill.readAll()).containsExactly(row);
+    }
+
+    @Test
+    void constructorParametersNeedNotFollowFieldOrder(@TempDir Path dir) {
+        RowSpill<Reordered> spill = new RowSpill<>(Reordered.class, dir.resolve("reordered.csv"));
+        spill.append(singletonList(new Reordered(3, "users")));
+        assertThat(spill.readAll())
+          .singleElement()
+          .satisfies(row -> {
+              assertThat(row.table).isEqualTo("users");
+              assertThat(row.count).isEqualTo(3);
+          });
+    }
+
+    @SuppressWarnings("unused")
+    static class Reordered {
+        final String table;
+        final int count;
+
+        Reordered(int count, String table) {
+            this.table = table;
+            this.count = count;
+        }
+    }
+}
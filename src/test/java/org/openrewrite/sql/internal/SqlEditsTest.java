@@ -0,0 +1,39 @@
+/*
+ * Copyright 2024 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.sql.internal;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SqlEditsTest {
+
+    @Test
+    void applyEditsInTextOrder() {
+        SqlEdits edits = new SqlEdits("select nvl(a, b), nvl(c, d) from t");
+        assertThat(edits.replace(18, 21, "COALESCE")).isTrue();
+        assertThat(edits.replace(7, 10, "COALESCE")).isTrue();
+        assertThat(edits.apply()).isEqualTo("select COALESCE(a, b), COALESCE(c, d) from t");
+    }
+
+    @Test
+    void overlappingEditsAreNotLocated() {
+        SqlEdits edits = new SqlEdits("select nvl(a, b) from t");
+        edits.replace(7, 10, "COALESCE");
+        assertThat(edits.replace(8, 12, "x")).isFalse();
+        assertThat(edits.isLocated()).isFalse();
+    }
+}
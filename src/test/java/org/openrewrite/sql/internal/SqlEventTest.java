@@ -0,0 +1,58 @@
+/*
+ * Copyright 2023 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.sql.internal;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SqlEventTest {
+
+    @Test
+    void notRecording() {
+        assertThat(SqlEvent.PARSE.begin()).isNull();
+    }
+
+    @Test
+    void recordParses(@TempDir Path dir) throws Exception {
+        // registers the event types before the recording enables them
+        assertThat(SqlEvent.PARSE.begin()).isNull();
+
+        try (Recording recording = new Recording()) {
+            recording.enable("org.openrewrite.sql.SqlParse");
+            recording.start();
+            SqlParseCache cache = new SqlParseCache();
+            cache.parse("select a from b where id = 1");
+            cache.parse("select a from b where id = 1");
+            cache.parse("Select a user from the list");
+            recording.stop();
+
+            Path file = dir.resolve("sql.jfr");
+            recording.dump(file);
+            List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+            assertThat(events).extracting(e -> e.getString("outcome")).containsExactly("parsed", "unparseable");
+            assertThat(events.get(0).getInt("length")).isEqualTo(28);
+            assertThat(events.get(0).getDuration()).isPositive();
+        }
+    }
+}
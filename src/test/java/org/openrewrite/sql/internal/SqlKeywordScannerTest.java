@@ -0,0 +1,100 @@
+/*
+ * Copyright 2024 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.sql.internal;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SqlKeywordScannerTest {
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+      "select * from table where id = 1",
+      "  (SELECT a FROM b) UNION (SELECT c FROM d)",
+      "-- find users\nselect name from users",
+      "WITH recent AS (SELECT id FROM orders) SELECT * FROM recent",
+      "UPDATE tab SET x = y",
+      "delete from access_token where email = :email",
+      "insert into t (a) values (1)",
+      "EXPLAIN SELECT a FROM b"
+    })
+    void probablySql(String maybeSql) {
+        assertThat(SqlKeywordScanner.probablySql(maybeSql)).isTrue();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+      "selectedItems",
+      "Failed to update user",
+      "insertion sort",
+      "This will be SELECTed by the heuristic but not parse as SQL",
+      "Could not delete the file",
+      "user.updated_at",
+      "DROP TABLE t"
+    })
+    void notSql(String maybeSql) {
+        assertThat(SqlKeywordScanner.probablySql(maybeSql)).isFalse();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+      "Truncate tab",
+      "DROP FUNCTION func CASCADE",
+      "-- migration\nCREATE TABLE t (id int)",
+      "/* v2 */ alter table t add column c int"
+    })
+    void probablyDdl(String maybeSql) {
+        assertThat(SqlKeywordScanner.probablySqlOrDdl(maybeSql)).isTrue();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+      "Unable to create user",
+      "Press ALT to drop the item",
+      "createdAt"
+    })
+    void notDdl(String maybeSql) {
+        assertThat(SqlKeywordScanner.probablySqlOrDdl(maybeSql)).isFalse();
+    }
+
+    @Test
+    void fewerFalsePositivesThanKeywordRegex() {
+        // the non-SQL strings of SqlKeywordScannerBenchmark
+        List<String> notSql = Arrays.asList(
+          "selectedItems",
+          "Failed to update user {}",
+          "insertion sort",
+          "Could not delete temporary file",
+          "user.updated_at",
+          "Please select an option from the list",
+          "com.example.service.UserService",
+          "application/json",
+          "Deleted %d records",
+          "onSelectionChanged"
+        );
+        Pattern regex = Pattern.compile("SELECT|UPDATE|DELETE|INSERT", Pattern.CASE_INSENSITIVE);
+        assertThat(notSql).filteredOn(s -> regex.matcher(s).find()).hasSize(8);
+        assertThat(notSql).filteredOn(SqlKeywordScanner::probablySql)
+          .containsExactly("Please select an option from the list");
+    }
+}
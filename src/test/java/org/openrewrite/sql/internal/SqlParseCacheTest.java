@@ -0,0 +1,74 @@
+/*
+ * Copyright 2024 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.sql.internal;
+
+import net.sf.jsqlparser.statement.Statement;
+import org.junit.jupiter.api.Test;
+import org.openrewrite.ExecutionContext;
+import org.openrewrite.InMemoryExecutionContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SqlParseCacheTest {
+
+    @Test
+    void parsesEachDistinctStatementOnce() {
+        SqlParseCache cache = new SqlParseCache();
+        Statement first = cache.parse("select * from table where id = 1");
+        Statement second = cache.parse("select * from table where id = 1");
+
+        assertThat(first).isNotNull().isSameAs(second);
+        assertThat(cache.getMisses()).isEqualTo(1);
+        assertThat(cache.getHits()).isEqualTo(1);
+    }
+
+    @Test
+    void cachesUnparseableVerdict() {
+        SqlParseCache cache = new SqlParseCache();
+        assertThat(cache.parse("Failed to update user")).isNull();
+        assertThat(cache.parse("Failed to update user")).isNull();
+
+        assertThat(cache.getMisses()).isEqualTo(1);
+        assertThat(cache.getHits()).isEqualTo(1);
+    }
+
+    @Test
+    void rememberEvictedNonSql() {
+        SqlParseCache cache = new SqlParseCache(16);
+        cache.parse("Failed to update user");
+        for (int i = 0; i < 1_000; i++) {
+            cache.parse("select * from table where id = " + i);
+        }
+        assertThat(cache.parse("Failed to update user")).isNull();
+        assertThat(cache.getNonSqlHits()).isEqualTo(1);
+    }
+
+    @Test
+    void boundedSize() {
+        SqlParseCache cache = new SqlParseCache(32);
+        for (int i = 0; i < 1_000; i++) {
+            cache.parse("select * from table where id = " + i);
+        }
+        assertThat(cache.size()).isLessThanOrEqualTo(32);
+    }
+
+    @Test
+    void scopedToExecutionContext() {
+        ExecutionContext ctx = new InMemoryExecutionContext();
+        assertThat(SqlParseCache.get(ctx)).isSameAs(SqlParseCache.get(ctx));
+        assertThat(SqlParseCache.get(new InMemoryExecutionContext())).isNotSameAs(SqlParseCache.get(ctx));
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2024 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.sql.internal;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SqlStatementSplitterTest {
+
+    @Test
+    void statementsWithLines() {
+        List<SqlStatementSplitter.Fragment> fragments = split(
+          """
+            -- users
+            SELECT * FROM users;
+
+            UPDATE users
+            SET name = 'a;b' -- trailing; comment
+            WHERE id = 1;
+            /* nothing here; */
+            """
+        );
+        assertThat(fragments).containsExactly(
+          new SqlStatementSplitter.Fragment("SELECT * FROM users", 9, 2),
+          new SqlStatementSplitter.Fragment("UPDATE users\nSET name = 'a;b' -- trailing; comment\nWHERE id = 1", 31, 4)
+        );
+    }
+
+    @Test
+    void quotedIdentifiersAndEscapes() {
+        assertThat(split("SELECT \"a;b\", 'it''s;', `c;d` FROM t; SELECT 1"))
+          .extracting(SqlStatementSplitter.Fragment::getText)
+          .containsExactly("SELECT \"a;b\", 'it''s;', `c;d` FROM t", "SELECT 1");
+    }
+
+    @Test
+    void dollarQuoting() {
+        assertThat(split(
+          """
+            CREATE FUNCTION f() RETURNS int AS $body$
+              SELECT 1; SELECT 2;
+            $body$ LANGUAGE sql;
+            SELECT f();
+            """
+        )).extracting(SqlStatementSplitter.Fragment::getLine).containsExactly(1, 4);
+    }
+
+    @Test
+    void beginEndBlocks() {
+        assertThat(split(
+          """
+            CREATE TRIGGER t BEFORE INSERT ON a FOR EACH ROW
+            BEGIN
+              IF NEW.x IS NULL THEN
+                SET NEW.x = CASE WHEN NEW.y > 0 THEN 1 ELSE 0 END;
+              END IF;
+            END;
+            BEGIN TRANSACTION;
+            COMMIT;
+            """
+        )).extracting(SqlStatementSplitter.Fragment::getLine).containsExactly(1, 7, 8);
+    }
+
+    @Test
+    void endCaseClosesProceduralCase() {
+        assertThat(split(
+          """
+            CREATE PROCEDURE p(x INT)
+            BEGIN
+              CASE x
+                WHEN 1 THEN SELECT 'one';
+                ELSE SELECT 'other';
+              END CASE;
+            END;
+            SELECT 1;
+            """
+        )).extracting(SqlStatementSplitter.Fragment::getLine).containsExactly(1, 8);
+    }
+
+    @Test
+    void beginIsolationLevelAndReadOnlyAreStatements() {
+        assertThat(split("BEGIN ISOLATION LEVEL SERIALIZABLE; BEGIN READ ONLY; SELECT 1; COMMIT"))
+          .extracting(SqlStatementSplitter.Fragment::getText)
+          .containsExactly("BEGIN ISOLATION LEVEL SERIALIZABLE", "BEGIN READ ONLY", "SELECT 1", "COMMIT");
+    }
+
+    @Test
+    void bareBeginStartsATransaction() {
+        assertThat(split("BEGIN; UPDATE t SET a = 1; COMMIT;"))
+          .extracting(SqlStatementSplitter.Fragment::getText)
+          .containsExactly("BEGIN", "UPDATE t SET a = 1", "COMMIT");
+    }
+
+    @Test
+    void columnsNamedBeginOrCase() {
+        assertThat(split("SELECT begin FROM t; SELECT case, id FROM t; SELECT 1"))
+          .extracting(SqlStatementSplitter.Fragment::getText)
+          .containsExactly("SELECT begin FROM t", "SELECT case, id FROM t", "SELECT 1");
+    }
+
+    @Test
+    void caseExpressionsOutsideBlocks() {
+        assertThat(split("SELECT CASE WHEN a > 0 THEN 1 ELSE 0 END FROM t; SELECT 1"))
+          .extracting(SqlStatementSplitter.Fragment::getText)
+          .containsExactly("SELECT CASE WHEN a > 0 THEN 1 ELSE 0 END FROM t", "SELECT 1");
+    }
+
+    @Test
+    void declarationsBeforeBegin() {
+        assertThat(split(
+          """
+            DECLARE
+              x NUMBER;
+              CURSOR c IS SELECT a FROM t;
+            BEGIN
+              x := 1;
+            END;
+            CREATE OR REPLACE PROCEDURE p IS
+              y NUMBER;
+            BEGIN
+              IF y IS NULL THEN
+                y := 1;
+              END IF;
+            END;
+            SELECT 1 FROM dual;
+            """
+        )).extracting(SqlStatementSplitter.Fragment::getLine).containsExactly(1, 7, 14);
+    }
+
+    @Test
+    void declareStatements() {
+        assertThat(split("DECLARE @x INT; SELECT @x; DECLARE c SCROLL CURSOR FOR SELECT 1; FETCH c"))
+          .extracting(SqlStatementSplitter.Fragment::getText)
+          .containsExactly("DECLARE @x INT", "SELECT @x", "DECLARE c SCROLL CURSOR FOR SELECT 1", "FETCH c");
+    }
+
+    @Test
+    void backslashesAreLiteralByDefault() {
+        assertThat(split("SELECT 'C:\\'; SELECT 1"))
+          .extracting(SqlStatementSplitter.Fragment::getText)
+          .containsExactly("SELECT 'C:\\'", "SELECT 1");
+    }
+
+    @Test
+    void backslashEscapesWhenEnabled() {
+        List<SqlStatementSplitter.Fragment> fragments = new ArrayList<>();
+        new SqlStatementSplitter("SELECT 'it\\'s;'; SELECT 1", true).forEach(fragments::add);
+        assertThat(fragments)
+          .extracting(SqlStatementSplitter.Fragment::getText)
+          .containsExactly("SELECT 'it\\'s;'", "SELECT 1");
+    }
+
+    private static List<SqlStatementSplitter.Fragment> split(String script) {
+        List<SqlStatementSplitter.Fragment> fragments = new ArrayList<>();
+        new SqlStatementSplitter(script).forEach(fragments::add);
+        return fragments;
+    }
+}
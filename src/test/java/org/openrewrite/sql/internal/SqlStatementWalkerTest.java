@@ -0,0 +1,75 @@
+/*
+ * Copyright 2023 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.sql.internal;
+
+import net.sf.jsqlparser.expression.ExpressionVisitorAdapter;
+import net.sf.jsqlparser.expression.Function;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SqlStatementWalkerTest {
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+      "SELECT nvl(a, b) FROM t WHERE id IN (SELECT max(id) FROM s)",
+      "CREATE VIEW v AS SELECT nvl(a, b) FROM t WHERE id IN (SELECT max(id) FROM s)",
+      "CREATE TABLE t2 AS SELECT nvl(a, b) FROM t WHERE id IN (SELECT max(id) FROM s)",
+      "UPSERT INTO t (a, b) SELECT nvl(a, b), max(id) FROM s",
+      "INSERT INTO t SET a = nvl(x, 1), b = max(y)",
+      "INSERT INTO t (a, b) VALUES (nvl(x, 1), 2) ON DUPLICATE KEY UPDATE b = max(b)"
+    })
+    void visitsEveryFunction(String sql) throws Exception {
+        assertThat(functions(sql)).containsExactlyInAnyOrder("nvl", "max");
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+      "SELECT id FROM t START WITH nvl(a, b) = 1 CONNECT BY PRIOR id = parent_id",
+      "SELECT id FROM t CONNECT BY PRIOR id = nvl(parent_id, 0)",
+      "SELECT a FROM t QUALIFY nvl(a, b) = 1",
+      "SELECT a FROM t LIMIT nvl(?, 10)",
+      "SELECT a FROM t ORDER BY a OFFSET nvl(?, 0) ROWS",
+      "SELECT a FROM t ORDER BY a FETCH FIRST nvl(?, 5) ROWS ONLY",
+      "SELECT DISTINCT ON (nvl(a, b)) a FROM t",
+      "SELECT sum(a) OVER w FROM t WINDOW w AS (PARTITION BY nvl(b, c))",
+      "UPDATE t SET a = 1 WHERE id = 2 RETURNING nvl(a, b)",
+      "UPDATE t SET a = 1 ORDER BY nvl(a, b) LIMIT 1",
+      "DELETE FROM t WHERE id = 1 RETURNING nvl(a, b)",
+      "DELETE FROM t ORDER BY nvl(a, b) LIMIT 1",
+      "INSERT INTO t (a) VALUES (1) RETURNING nvl(a, b)",
+      "WITH x AS (SELECT id, nvl(a, b) AS a FROM s) MERGE INTO t USING x ON (t.id = x.id) WHEN MATCHED THEN UPDATE SET t.a = x.a"
+    })
+    void visitsFunctionsInEveryClause(String sql) throws Exception {
+        assertThat(functions(sql)).contains("nvl");
+    }
+
+    private static List<String> functions(String sql) throws Exception {
+        List<String> functions = new ArrayList<>();
+        SqlParser.parse(sql).accept(new SqlStatementWalker(new ExpressionVisitorAdapter() {
+            @Override
+            public void visit(Function function) {
+                functions.add(function.getName());
+                super.visit(function);
+            }
+        }));
+        return functions;
+    }
+}
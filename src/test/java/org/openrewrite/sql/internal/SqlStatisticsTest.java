@@ -0,0 +1,78 @@
+/*
+ * Copyright 2023 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.sql.internal;
+
+import org.junit.jupiter.api.Test;
+import org.openrewrite.sql.table.SqlProcessingStatistics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SqlStatisticsTest {
+
+    @Test
+    void bucketsAreContiguous() {
+        for (long nanos = 0; nanos < 20_000; nanos++) {
+            int bucket = SqlStatistics.bucket(nanos);
+            assertThat(SqlStatistics.lowerBound(bucket)).isLessThanOrEqualTo(nanos);
+            assertThat(SqlStatistics.lowerBound(bucket + 1)).isGreaterThan(nanos);
+        }
+        assertThat(SqlStatistics.bucket(Long.MAX_VALUE)).isLessThan(64 * 8);
+    }
+
+    @Test
+    void percentileIsWithinBucketPrecision() {
+        long[] histogram = new long[64 * 8];
+        for (long nanos = 1; nanos <= 1000; nanos++) {
+            histogram[SqlStatistics.bucket(nanos * 1_000)]++;
+        }
+        assertThat(SqlStatistics.percentile(histogram, 1000, 0.5)).isBetween(500_000L, 562_500L);
+        assertThat(SqlStatistics.percentile(histogram, 1000, 0.99)).isBetween(990_000L, 1_113_750L);
+        assertThat(SqlStatistics.percentile(new long[64 * 8], 0, 0.5)).isZero();
+    }
+
+    @Test
+    void mergeThreadsAndReportOnce() throws InterruptedException {
+        SqlStatistics statistics = new SqlStatistics();
+        SqlStatistics.Recorder recorder = statistics.recorder("recipe");
+        Thread thread = new Thread(() -> {
+            SqlStatistics.Counters counters = recorder.counters("a.sql");
+            counters.examined(true);
+            counters.parsed("select 1", 2_000, true);
+        });
+        thread.start();
+        thread.join();
+
+        SqlStatistics.Counters counters = recorder.counters("b.sql");
+        counters.examined(false);
+        counters.examined(true);
+        counters.parsed("select 2", 1_000, false);
+        counters.cacheHit();
+        statistics.recorder("other").counters("c.sql").examined(true);
+
+        SqlProcessingStatistics.Row row = statistics.summarize("recipe");
+        assertThat(row).isNotNull();
+        assertThat(row.getStringsExamined()).isEqualTo(3);
+        assertThat(row.getHeuristicPasses()).isEqualTo(2);
+        assertThat(row.getParseSuccesses()).isEqualTo(1);
+        assertThat(row.getParseFailures()).isEqualTo(1);
+        assertThat(row.getCacheHits()).isEqualTo(1);
+        assertThat(row.getParseNanos()).isEqualTo(3_000);
+        assertThat(row.getSlowestStatements()).isEqualTo("a.sql (2000): select 1\nb.sql (1000): select 2");
+
+        assertThat(statistics.summarize("recipe")).isNull();
+        assertThat(statistics.summarize("other")).isNotNull();
+    }
+}
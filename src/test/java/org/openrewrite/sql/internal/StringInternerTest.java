@@ -0,0 +1,41 @@
+/*
+ * Copyright 2024 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.sql.internal;
+
+import org.junit.jupiter.api.Test;
+import org.openrewrite.ExecutionContext;
+import org.openrewrite.InMemoryExecutionContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StringInternerTest {
+
+    @Test
+    void equalStringsShareOneInstance() {
+        StringInterner strings = new StringInterner();
+        String first = strings.intern(new String("recipe_run_repository"));
+        String second = strings.intern(new String("recipe_run_repository"));
+
+        assertThat(second).isSameAs(first);
+        assertThat(strings.size()).isEqualTo(1);
+    }
+
+    @Test
+    void sharedThroughExecutionContext() {
+        ExecutionContext ctx = new InMemoryExecutionContext();
+        assertThat(StringInterner.get(ctx)).isSameAs(StringInterner.get(ctx));
+    }
+}
@@ -17,9 +17,13 @@ package org.openrewrite.sql.search;
 
 import org.junit.jupiter.api.Test;
 import org.openrewrite.DocumentExample;
+import org.openrewrite.sql.table.DatabaseFunctions;
+import org.openrewrite.sql.table.DatabaseQueries;
+import org.openrewrite.sql.table.SqlProcessingStatistics;
 import org.openrewrite.test.RecipeSpec;
 import org.openrewrite.test.RewriteTest;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.openrewrite.test.SourceSpecs.text;
 
 class FindFunctionTest implements RewriteTest {
@@ -45,6 +49,21 @@ class FindFunctionTest implements RewriteTest {
         );
     }
 
+    @Test
+    void findFunctionInSubquery() {
+        rewriteRun(
+          text(
+            """
+              select a from table where id in (select max(nvl(x, y)) from other)
+              """,
+            """
+              ~~>select a from table where id in (select max(nvl(x, y)) from other)
+              """,
+            spec -> spec.path("q.sql")
+          )
+        );
+    }
+
     @Test
     void noMatch() {
         rewriteRun(
@@ -56,4 +75,82 @@ class FindFunctionTest implements RewriteTest {
           )
         );
     }
+
+    @Test
+    void queryStoredOnceAndReferencedById() {
+        rewriteRun(
+          spec -> spec
+            .dataTable(DatabaseQueries.Row.class, queries -> {
+                assertThat(queries).hasSize(1);
+                assertThat(queries.get(0).getQuery()).isEqualTo("select nvl(a, b), nvl(c, d) from table where id = 1\n");
+            })
+            .dataTable(DatabaseFunctions.Row.class, functions -> {
+                assertThat(functions).hasSize(2);
+                assertThat(functions).extracting(DatabaseFunctions.Row::getFunction).containsOnly("nvl");
+                assertThat(functions).extracting(DatabaseFunctions.Row::getQueryId).doesNotContainNull().containsOnly(
+                  functions.get(0).getQueryId());
+            }),
+          text(
+            """
+              select nvl(a, b), nvl(c, d) from table where id = 1
+              """,
+            """
+              ~~>select nvl(a, b), nvl(c, d) from table where id = 1
+              """,
+            spec -> spec.path("q.sql")
+          )
+        );
+    }
+
+    @Test
+    void queryStoredOncePerSourceFile() {
+        rewriteRun(
+          spec -> spec.dataTable(DatabaseQueries.Row.class, queries -> assertThat(queries)
+            .extracting(DatabaseQueries.Row::getSourcePath)
+            .containsExactlyInAnyOrder("a.sql", "b.sql")),
+          text(
+            """
+              select nvl(a, b) from table where id = 1
+              """,
+            """
+              ~~>select nvl(a, b) from table where id = 1
+              """,
+            spec -> spec.path("a.sql")
+          ),
+          text(
+            """
+              select nvl(a, b) from table where id = 1
+              """,
+            """
+              ~~>select nvl(a, b) from table where id = 1
+              """,
+            spec -> spec.path("b.sql")
+          )
+        );
+    }
+
+    @Test
+    void processingStatistics() {
+        rewriteRun(
+          spec -> spec.dataTable(SqlProcessingStatistics.Row.class, rows -> {
+              assertThat(rows).hasSize(1);
+              SqlProcessingStatistics.Row row = rows.get(0);
+              assertThat(row.getRecipe()).isEqualTo("org.openrewrite.sql.search.FindFunction");
+              assertThat(row.getHeuristicPasses()).isPositive();
+              assertThat(row.getParseSuccesses()).isEqualTo(1);
+              assertThat(row.getParseFailures()).isZero();
+              assertThat(row.getP99ParseNanos()).isGreaterThanOrEqualTo(row.getP50ParseNanos());
+              assertThat(row.getSlowestStatements()).startsWith("q.sql (");
+          }),
+          text(
+            """
+              select nvl(a, b) from table where id = 1
+              """,
+            """
+              ~~>select nvl(a, b) from table where id = 1
+              """,
+            spec -> spec.path("q.sql")
+          )
+        );
+    }
 }
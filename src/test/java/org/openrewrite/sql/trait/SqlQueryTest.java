@@ -16,11 +16,18 @@
 package org.openrewrite.sql.trait;
 
 import org.junit.jupiter.api.Test;
+import org.openrewrite.Cursor;
 import org.openrewrite.DocumentExample;
+import org.openrewrite.java.tree.J;
+import org.openrewrite.java.tree.JavaType;
+import org.openrewrite.java.tree.Space;
+import org.openrewrite.marker.Markers;
 import org.openrewrite.marker.SearchResult;
 import org.openrewrite.test.RecipeSpec;
 import org.openrewrite.test.RewriteTest;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.openrewrite.Tree.randomId;
 import static org.openrewrite.java.Assertions.java;
 import static org.openrewrite.sql.trait.Traits.sql;
 import static org.openrewrite.test.RewriteTest.toRecipe;
@@ -107,4 +114,13 @@ class SqlQueryTest implements RewriteTest {
           )
         );
     }
+
+    @Test
+    void matchOutsideOfSourceFile() {
+        J.Literal literal = new J.Literal(randomId(), Space.EMPTY, Markers.EMPTY, "select * from table where id = 1",
+          "\"select * from table where id = 1\"", null, JavaType.Primitive.String);
+        Cursor cursor = new Cursor(new Cursor(null, Cursor.ROOT_VALUE), literal);
+        assertThat(new SqlQuery.Matcher().get(cursor))
+          .hasValueSatisfying(sql -> assertThat(sql.getScanContext()).isNull());
+    }
 }